@@ -0,0 +1,64 @@
+package SistemaHotel;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+// A ocupação de uma noite cruzou o limite configurado, para cima (acimaDoLimite) ou de volta para baixo
+public final class AlertaCapacidade {
+
+	private final String categoria; // null = hotel inteiro
+	private final LocalDate noite;
+	private final int ocupados;
+	private final int capacidade; // Vendável: quartos mais a margem de overbooking
+	private final double limitePercentual;
+	private final boolean acimaDoLimite;
+
+	AlertaCapacidade(String categoria, LocalDate noite, int ocupados, int capacidade, double limitePercentual,
+			boolean acimaDoLimite) {
+		this.categoria = categoria;
+		this.noite = noite;
+		this.ocupados = ocupados;
+		this.capacidade = capacidade;
+		this.limitePercentual = limitePercentual;
+		this.acimaDoLimite = acimaDoLimite;
+	}
+
+	public String getCategoria() {
+		return categoria;
+	}
+
+	public LocalDate getNoite() {
+		return noite;
+	}
+
+	public int getOcupados() {
+		return ocupados;
+	}
+
+	public int getCapacidade() {
+		return capacidade;
+	}
+
+	public double getLimitePercentual() {
+		return limitePercentual;
+	}
+
+	public boolean isAcimaDoLimite() {
+		return acimaDoLimite;
+	}
+
+	public double getTaxaOcupacao() {
+		return MotorCapacidade.taxa(ocupados, capacidade);
+	}
+
+	public String formatar() {
+		return String.format(Locale.ROOT, "%s: %s na noite de %s com %d de %d (%.2f%%, limite %.1f%%).",
+				acimaDoLimite ? "Alerta" : "Normalizado", categoria == null ? "Hotel" : categoria, noite,
+				ocupados, capacidade, getTaxaOcupacao(), limitePercentual);
+	}
+
+	@Override
+	public String toString() {
+		return formatar();
+	}
+}
@@ -0,0 +1,362 @@
+package SistemaHotel;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Camada fria do histórico: segmentos imutáveis, um por mês de check-out e por execução de
+// arquivamento, com as reservas ordenadas por check-out e um índice esparso sobre ele.
+// Consultas abrem só os segmentos cujo intervalo de check-out cruza a janela pedida.
+// Arquivos: historico-<AAAA-MM>-<execucao>.bin; enquanto o arquivamento não está no journal,
+// o segmento fica como .tmp e é descartado na recuperação.
+// Layout (big-endian):
+//   [int MAGICO][int FORMATO][int quantidade][int menor checkOut][int maior checkOut]
+//   [int n][(int checkOut, long deslocamento) x n]   índice: uma entrada a cada INTERVALO_INDICE reservas
+//   [int dias][(int checkOut, int quantidade) x dias] cancelamentos por dia, para as métricas
+//   [int bytes][int quartos][(int número, int d, (int dia, int diferença) x d, int c, (int checkIn, int estadias) x c)
+//     x quartos]   ocupação das estadias concluídas por quarto (OcupacaoQuarto), lida só na partida
+//   [reservas no formato do journal]
+final class ArquivoHistorico {
+
+	private static final int MAGICO = 0x52535648; // "RSVH"
+	private static final int FORMATO = 3;
+	private static final int INTERVALO_INDICE = 64;
+	private static final String PREFIXO = "historico-";
+
+	// Estadias concluídas de um quarto em um segmento: diferenças de ocupação por dia (+1 no check-in,
+	// -1 no check-out; estadias emendadas se anulam) e quantidade de estadias por dia de check-in
+	record OcupacaoQuarto(int numeroQuarto, int[] dias, int[] diferencas, int[] checkIns, int[] estadias) {
+	}
+
+	private final Path diretorio;
+	private volatile List<Segmento> segmentos; // Imutável, por menor check-out
+
+	ArquivoHistorico(Path diretorio) throws IOException {
+		this.diretorio = diretorio;
+		if (!Files.isDirectory(diretorio)) {
+			Files.createDirectories(diretorio);
+			JournalReservas.sincronizarDiretorio(diretorio.toAbsolutePath().getParent());
+		}
+		List<Segmento> carregados = new ArrayList<>();
+		for (Path arquivo : listar(".bin")) {
+			carregados.add(new Segmento(arquivo));
+		}
+		this.segmentos = ordenados(carregados);
+	}
+
+	private static List<Segmento> ordenados(List<Segmento> segmentos) {
+		segmentos.sort(Comparator.comparingInt(segmento -> segmento.menorCheckOut));
+		return List.copyOf(segmentos);
+	}
+
+	// Maior execução com segmento gravado (confirmado ou não) mais um
+	synchronized long proximaExecucao() throws IOException {
+		long maior = 0;
+		for (Path arquivo : listar(null)) {
+			maior = Math.max(maior, execucao(arquivo));
+		}
+		return maior + 1;
+	}
+
+	// Grava os segmentos .tmp da execução, um por mês de check-out, sincronizados no disco junto com
+	// o diretório: o registro no journal que vem depois conta com eles. Regravar a mesma execução
+	// substitui os arquivos anteriores.
+	synchronized void prepararSegmentos(long execucao, List<Reserva> reservas) throws IOException {
+		for (Path arquivo : listar(".tmp")) {
+			if (execucao(arquivo) == execucao) {
+				Files.delete(arquivo);
+			}
+		}
+		Map<YearMonth, List<Reserva>> porMes = new TreeMap<>();
+		for (Reserva reserva : reservas) {
+			porMes.computeIfAbsent(YearMonth.from(reserva.getCheckOut()), mes -> new ArrayList<>()).add(reserva);
+		}
+		for (Map.Entry<YearMonth, List<Reserva>> entry : porMes.entrySet()) {
+			gravarSegmento(diretorio.resolve(PREFIXO + entry.getKey() + "-" + execucao + ".tmp"), entry.getValue());
+		}
+		JournalReservas.sincronizarDiretorio(diretorio);
+	}
+
+	private static void gravarSegmento(Path arquivo, List<Reserva> reservas) throws IOException {
+		List<Reserva> ordenadas = new ArrayList<>(reservas);
+		ordenadas.sort(Comparator.comparingInt(Reserva::getCheckOutDia));
+
+		ByteArrayOutputStream registros = new ByteArrayOutputStream(64 * ordenadas.size());
+		DataOutputStream dadosRegistros = new DataOutputStream(registros);
+		List<long[]> indice = new ArrayList<>();
+		TreeMap<Integer, Integer> porDia = new TreeMap<>();
+		TreeMap<Integer, TreeMap<Integer, Integer>> diferencasPorQuarto = new TreeMap<>();
+		TreeMap<Integer, TreeMap<Integer, Integer>> checkInsPorQuarto = new TreeMap<>();
+		for (int i = 0; i < ordenadas.size(); i++) {
+			Reserva reserva = ordenadas.get(i);
+			if (i % INTERVALO_INDICE == 0) {
+				indice.add(new long[] { reserva.getCheckOutDia(), registros.size() });
+			}
+			if (reserva.getStatusReserva() == StatusReserva.CONCLUIDA) {
+				TreeMap<Integer, Integer> diferencas = diferencasPorQuarto.computeIfAbsent(reserva.getNumeroQuarto(),
+						numero -> new TreeMap<>());
+				diferencas.merge(reserva.getCheckInDia(), 1, ArquivoHistorico::somarOuAnular);
+				diferencas.merge(reserva.getCheckOutDia(), -1, ArquivoHistorico::somarOuAnular);
+				checkInsPorQuarto.computeIfAbsent(reserva.getNumeroQuarto(), numero -> new TreeMap<>())
+						.merge(reserva.getCheckInDia(), 1, Integer::sum);
+			} else {
+				porDia.merge(reserva.getCheckOutDia(), 1, Integer::sum);
+			}
+			JournalReservas.escreverReserva(dadosRegistros, reserva);
+		}
+		dadosRegistros.flush();
+
+		ByteArrayOutputStream ocupacao = new ByteArrayOutputStream();
+		if (!checkInsPorQuarto.isEmpty()) {
+			DataOutputStream dadosOcupacao = new DataOutputStream(ocupacao);
+			dadosOcupacao.writeInt(checkInsPorQuarto.size());
+			for (Map.Entry<Integer, TreeMap<Integer, Integer>> quarto : checkInsPorQuarto.entrySet()) {
+				dadosOcupacao.writeInt(quarto.getKey());
+				escreverPares(dadosOcupacao, diferencasPorQuarto.get(quarto.getKey()));
+				escreverPares(dadosOcupacao, quarto.getValue());
+			}
+			dadosOcupacao.flush();
+		}
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(arquivo)))) {
+			out.writeInt(MAGICO);
+			out.writeInt(FORMATO);
+			out.writeInt(ordenadas.size());
+			out.writeInt(ordenadas.get(0).getCheckOutDia());
+			out.writeInt(ordenadas.get(ordenadas.size() - 1).getCheckOutDia());
+			out.writeInt(indice.size());
+			for (long[] entrada : indice) {
+				out.writeInt((int) entrada[0]);
+				out.writeLong(entrada[1]);
+			}
+			out.writeInt(porDia.size());
+			for (Map.Entry<Integer, Integer> dia : porDia.entrySet()) {
+				out.writeInt(dia.getKey());
+				out.writeInt(dia.getValue());
+			}
+			out.writeInt(ocupacao.size());
+			ocupacao.writeTo(out);
+			registros.writeTo(out);
+		}
+		try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.WRITE)) {
+			canal.force(true);
+		}
+	}
+
+	// Diferença que zera some do mapa: o check-out de uma estadia e o check-in da seguinte se anulam
+	private static Integer somarOuAnular(Integer atual, Integer delta) {
+		int soma = atual + delta;
+		return soma == 0 ? null : soma;
+	}
+
+	private static void escreverPares(DataOutputStream out, Map<Integer, Integer> pares) throws IOException {
+		out.writeInt(pares.size());
+		for (Map.Entry<Integer, Integer> par : pares.entrySet()) {
+			out.writeInt(par.getKey());
+			out.writeInt(par.getValue());
+		}
+	}
+
+	// Publica os segmentos .tmp da execução; sem efeito se já foram publicados
+	synchronized void confirmar(long execucao) throws IOException {
+		List<Segmento> atuais = new ArrayList<>(segmentos);
+		for (Path temporario : listar(".tmp")) {
+			if (execucao(temporario) == execucao) {
+				String nome = temporario.getFileName().toString();
+				Path definitivo = diretorio.resolve(nome.substring(0, nome.length() - 4) + ".bin");
+				Files.move(temporario, definitivo, StandardCopyOption.ATOMIC_MOVE);
+				atuais.add(new Segmento(definitivo));
+			}
+		}
+		JournalReservas.sincronizarDiretorio(diretorio);
+		segmentos = ordenados(atuais);
+	}
+
+	// Apaga os segmentos de execuções que não chegaram ao journal
+	synchronized void descartarPendentes() throws IOException {
+		for (Path temporario : listar(".tmp")) {
+			Files.delete(temporario);
+		}
+	}
+
+	// Reservas arquivadas com inicio < checkOut < fim (epoch days), em ordem de check-out por segmento
+	void paraCadaComCheckOutEntre(int inicio, int fim, Consumer<Reserva> acao) {
+		for (Segmento segmento : segmentos) {
+			if (segmento.maiorCheckOut > inicio && segmento.menorCheckOut < fim) {
+				try {
+					segmento.ler(inicio, fim, acao);
+				} catch (IOException e) {
+					throw new UncheckedIOException("Erro ao ler o segmento " + segmento.arquivo, e);
+				}
+			}
+		}
+	}
+
+	// Ocupação das estadias concluídas de todos os segmentos publicados, lida só dos cabeçalhos.
+	// Usada na partida para devolver essas noites às métricas sem decodificar as reservas.
+	void paraCadaOcupacao(Consumer<OcupacaoQuarto> acao) {
+		for (Segmento segmento : segmentos) {
+			try {
+				segmento.lerOcupacao(acao);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Erro ao ler o segmento " + segmento.arquivo, e);
+			}
+		}
+	}
+
+	// Entrega (checkOut, quantidade) de cancelamentos de todos os segmentos publicados
+	void paraCadaContagemPorDia(BiConsumer<Integer, Integer> acao) {
+		for (Segmento segmento : segmentos) {
+			for (int i = 0; i < segmento.diasContagem.length; i++) {
+				acao.accept(segmento.diasContagem[i], segmento.contagens[i]);
+			}
+		}
+	}
+
+	long getQuantidade() {
+		long total = 0;
+		for (Segmento segmento : segmentos) {
+			total += segmento.quantidade;
+		}
+		return total;
+	}
+
+	int getSegmentos() {
+		return segmentos.size();
+	}
+
+	// sufixo null = .bin e .tmp
+	private List<Path> listar(String sufixo) throws IOException {
+		try (Stream<Path> arquivos = Files.list(diretorio)) {
+			return arquivos.filter(arquivo -> {
+				String nome = arquivo.getFileName().toString();
+				return nome.startsWith(PREFIXO) && (sufixo == null
+						? nome.endsWith(".bin") || nome.endsWith(".tmp") : nome.endsWith(sufixo));
+			}).toList();
+		}
+	}
+
+	private static long execucao(Path arquivo) {
+		String nome = arquivo.getFileName().toString();
+		return Long.parseLong(nome.substring(nome.lastIndexOf('-') + 1, nome.length() - 4));
+	}
+
+	// Cabeçalho, índice e contagens ficam em memória; a ocupação e as reservas são lidas do disco sob demanda
+	private static final class Segmento {
+		final Path arquivo;
+		final int quantidade;
+		final int menorCheckOut;
+		final int maiorCheckOut;
+		final int[] checkOutIndice;
+		final long[] deslocamentoIndice;
+		final int[] diasContagem;
+		final int[] contagens;
+		final long inicioOcupacao;
+		final int tamanhoOcupacao;
+		final long inicioRegistros;
+
+		Segmento(Path arquivo) throws IOException {
+			this.arquivo = arquivo;
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(arquivo)))) {
+				int formato = in.readInt() == MAGICO ? in.readInt() : 0;
+				if (formato != FORMATO) {
+					throw new IOException("Arquivo não é um segmento do histórico: " + arquivo);
+				}
+				quantidade = in.readInt();
+				menorCheckOut = in.readInt();
+				maiorCheckOut = in.readInt();
+				int entradas = in.readInt();
+				checkOutIndice = new int[entradas];
+				deslocamentoIndice = new long[entradas];
+				for (int i = 0; i < entradas; i++) {
+					checkOutIndice[i] = in.readInt();
+					deslocamentoIndice[i] = in.readLong();
+				}
+				int dias = in.readInt();
+				diasContagem = new int[dias];
+				contagens = new int[dias];
+				for (int i = 0; i < dias; i++) {
+					diasContagem[i] = in.readInt();
+					contagens[i] = in.readInt();
+				}
+				tamanhoOcupacao = in.readInt();
+				inicioOcupacao = 4L * 8 + 12L * entradas + 8L * dias;
+				inicioRegistros = inicioOcupacao + tamanhoOcupacao;
+			}
+		}
+
+		void lerOcupacao(Consumer<OcupacaoQuarto> acao) throws IOException {
+			if (tamanhoOcupacao == 0) {
+				return;
+			}
+			try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+				canal.position(inicioOcupacao);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(canal)));
+				int quartos = in.readInt();
+				for (int q = 0; q < quartos; q++) {
+					int numeroQuarto = in.readInt();
+					int[] dias = new int[in.readInt()];
+					int[] diferencas = new int[dias.length];
+					for (int i = 0; i < dias.length; i++) {
+						dias[i] = in.readInt();
+						diferencas[i] = in.readInt();
+					}
+					int[] checkIns = new int[in.readInt()];
+					int[] estadias = new int[checkIns.length];
+					for (int i = 0; i < checkIns.length; i++) {
+						checkIns[i] = in.readInt();
+						estadias[i] = in.readInt();
+					}
+					acao.accept(new OcupacaoQuarto(numeroQuarto, dias, diferencas, checkIns, estadias));
+				}
+			}
+		}
+
+		void ler(int inicio, int fim, Consumer<Reserva> acao) throws IOException {
+			// Última entrada do índice com checkOut <= inicio: as anteriores só têm checkOut <= inicio
+			int entrada = 0;
+			int baixo = 0, alto = checkOutIndice.length - 1;
+			while (baixo <= alto) {
+				int meio = (baixo + alto) >>> 1;
+				if (checkOutIndice[meio] <= inicio) {
+					entrada = meio;
+					baixo = meio + 1;
+				} else {
+					alto = meio - 1;
+				}
+			}
+			try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+				canal.position(inicioRegistros + deslocamentoIndice[entrada]);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(canal)));
+				for (int i = entrada * INTERVALO_INDICE; i < quantidade; i++) {
+					Reserva reserva = JournalReservas.decodificarReserva(in);
+					if (reserva.getCheckOutDia() >= fim) {
+						break;
+					}
+					if (reserva.getCheckOutDia() > inicio) {
+						acao.accept(reserva);
+					}
+				}
+			}
+		}
+	}
+}
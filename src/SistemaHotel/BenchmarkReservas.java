@@ -0,0 +1,289 @@
+package SistemaHotel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+
+// Medição dos caminhos quentes do HotelReservaSistema, sem dependências além do JDK.
+// Uso: java SistemaHotel.BenchmarkReservas [--tamanhos 1000,100000,1000000] [--threads 1,4]
+//          [--aquecimento 3] [--iteracoes 5] [--operacoes 2000] [--saida resultados.json]
+// Para cada tamanho de livro, cada cenário roda 'aquecimento' + 'iteracoes' rodadas; em cada rodada
+// todas as threads executam 'operacoes' chamadas juntas. O resultado sai em JSON, um objeto por
+// (cenário, tamanho, threads), para comparar execuções ao longo do tempo.
+public class BenchmarkReservas {
+
+    private static final String[] CATEGORIAS = {"Standard", "Luxo", "Premium"};
+    private static final int RESERVAS_POR_QUARTO = 200;
+    private static final int DIAS_FUTURO = 1000; // Cadastros medidos ficam depois do livro carregado
+
+    private static volatile int consumidor; // Impede que o JIT elimine as chamadas medidas
+
+    // Uma operação medida; preparar e limpar rodam fora do tempo medido, na mesma thread
+    private interface Cenario {
+        default void preparar(Livro livro, int thread, int operacoes) {
+        }
+
+        int executar(Livro livro, int thread, int indice, SplittableRandom aleatorio);
+
+        default void limpar(Livro livro, int thread, int operacoes) {
+        }
+    }
+
+    // Sistema carregado com 'tamanho' reservas em quartos distribuídos pelas categorias
+    private static final class Livro {
+        final HotelReservaSistema sistema = new HotelReservaSistema(RegistroEventos.nenhum());
+        final int tamanho;
+        final int quartos;
+        final int clientes;
+        final LocalDate inicio = LocalDate.now();
+        final int diasOcupados;
+
+        Livro(int tamanho) {
+            this.tamanho = tamanho;
+            this.quartos = Math.max(60, tamanho / RESERVAS_POR_QUARTO);
+            this.clientes = Math.max(1, tamanho / 4);
+            for (int numero = 1; numero <= quartos; numero++) {
+                sistema.adicionarQuarto(numero, CATEGORIAS[numero % CATEGORIAS.length]);
+            }
+            // Estadias de 1 a 3 noites, em sequência por quarto, carregadas em lotes
+            SplittableRandom aleatorio = new SplittableRandom(tamanho);
+            int[] proximoDia = new int[quartos + 1];
+            List<Reserva> lote = new ArrayList<>(HotelReservaSistema.MAXIMO_LOTE);
+            for (int i = 0; i < tamanho; i++) {
+                int numero = 1 + i % quartos;
+                int noites = 1 + aleatorio.nextInt(3);
+                LocalDate checkIn = inicio.plusDays(proximoDia[numero]);
+                proximoDia[numero] += noites + aleatorio.nextInt(2);
+                lote.add(new Reserva("c" + i % clientes, numero, "", checkIn, checkIn.plusDays(noites),
+                        CATEGORIAS[numero % CATEGORIAS.length]));
+                if (lote.size() == HotelReservaSistema.MAXIMO_LOTE) {
+                    carregar(lote);
+                }
+            }
+            carregar(lote);
+            int maiorDia = 0;
+            for (int dia : proximoDia) {
+                maiorDia = Math.max(maiorDia, dia);
+            }
+            this.diasOcupados = Math.max(1, maiorDia);
+        }
+
+        private void carregar(List<Reserva> lote) {
+            if (!lote.isEmpty() && !sistema.cadastrarReservas(lote).isSucesso()) {
+                throw new IllegalStateException("Falha ao carregar o livro de reservas");
+            }
+            lote.clear();
+        }
+
+        LocalDate diaAleatorio(SplittableRandom aleatorio) {
+            return inicio.plusDays(aleatorio.nextInt(diasOcupados));
+        }
+
+        Reserva reservaFutura(int thread, int indice, SplittableRandom aleatorio) {
+            int numero = 1 + aleatorio.nextInt(quartos);
+            LocalDate checkIn = inicio.plusDays(DIAS_FUTURO + aleatorio.nextInt(2000)); // Dentro do horizonte de reservas
+            return new Reserva("b" + thread + "-" + indice, numero, "", checkIn, checkIn.plusDays(1),
+                    CATEGORIAS[numero % CATEGORIAS.length]);
+        }
+    }
+
+    private static Map<String, Cenario> cenarios() {
+        Map<String, Cenario> cenarios = new LinkedHashMap<>();
+        cenarios.put("cadastrarReserva", new Cenario() {
+            @Override
+            public int executar(Livro livro, int thread, int indice, SplittableRandom aleatorio) {
+                return livro.sistema.cadastrarReserva(livro.reservaFutura(thread, indice, aleatorio)).ordinal();
+            }
+
+            @Override
+            public void limpar(Livro livro, int thread, int operacoes) {
+                // Devolve o livro ao tamanho original
+                for (int i = 0; i < operacoes; i++) {
+                    livro.sistema.cancelarReserva("b" + thread + "-" + i);
+                }
+            }
+        });
+        cenarios.put("cancelarReserva", new Cenario() {
+            @Override
+            public void preparar(Livro livro, int thread, int operacoes) {
+                SplittableRandom aleatorio = new SplittableRandom(thread);
+                for (int i = 0; i < operacoes; i++) {
+                    livro.sistema.cadastrarReserva(livro.reservaFutura(thread, i, aleatorio));
+                }
+            }
+
+            @Override
+            public int executar(Livro livro, int thread, int indice, SplittableRandom aleatorio) {
+                return livro.sistema.cancelarReserva("b" + thread + "-" + indice).ordinal();
+            }
+        });
+        cenarios.put("consultarReservaPorCliente", (livro, thread, indice, aleatorio) ->
+                hash(livro.sistema.consultarReservaPorCliente("c" + aleatorio.nextInt(livro.clientes))));
+        cenarios.put("consultarDisponibilidade", (livro, thread, indice, aleatorio) ->
+                livro.sistema.consultarDisponibilidade(livro.diaAleatorio(aleatorio),
+                        CATEGORIAS[aleatorio.nextInt(CATEGORIAS.length)]).size());
+        cenarios.put("obterReservasNoPeriodo", (livro, thread, indice, aleatorio) -> {
+            LocalDate inicio = livro.diaAleatorio(aleatorio);
+            return livro.sistema.obterReservasNoPeriodo(inicio, inicio.plusDays(7)).size();
+        });
+        cenarios.put("gerarRelatorioTaxaOcupacao", (livro, thread, indice, aleatorio) -> {
+            LocalDate inicio = livro.diaAleatorio(aleatorio);
+            livro.sistema.gerarRelatorioTaxaOcupacao(inicio, inicio.plusDays(30));
+            return indice;
+        });
+        cenarios.put("gerarRelatorioCancelamentos", (livro, thread, indice, aleatorio) -> {
+            LocalDate inicio = livro.diaAleatorio(aleatorio);
+            livro.sistema.gerarRelatorioCancelamentos(inicio, inicio.plusDays(30));
+            return indice;
+        });
+        cenarios.put("gerarRelatorioQuartosMaisEMenosReservados", (livro, thread, indice, aleatorio) -> {
+            livro.sistema.gerarRelatorioQuartosMaisEMenosReservados();
+            return indice;
+        });
+        return cenarios;
+    }
+
+    private static int hash(Object valor) {
+        return valor == null ? 0 : System.identityHashCode(valor);
+    }
+
+    // Uma rodada: todas as threads começam juntas; devolve o tempo de parede em nanossegundos
+    private static long rodada(Livro livro, Cenario cenario, int threads, int operacoes, long semente)
+            throws InterruptedException {
+        CountDownLatch prontas = new CountDownLatch(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        CountDownLatch medidas = new CountDownLatch(threads);
+        Thread[] executoras = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executoras[t] = new Thread(() -> {
+                SplittableRandom aleatorio = new SplittableRandom(semente * 31 + thread);
+                cenario.preparar(livro, thread, operacoes);
+                prontas.countDown();
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                int acumulado = 0;
+                for (int i = 0; i < operacoes; i++) {
+                    acumulado += cenario.executar(livro, thread, i, aleatorio);
+                }
+                medidas.countDown();
+                consumidor += acumulado;
+                cenario.limpar(livro, thread, operacoes);
+            }, "benchmark-" + t);
+            executoras[t].start();
+        }
+        prontas.await();
+        long inicio = System.nanoTime();
+        largada.countDown();
+        medidas.await();
+        long duracao = System.nanoTime() - inicio;
+        for (Thread executora : executoras) {
+            executora.join();
+        }
+        return duracao;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> opcoes = lerOpcoes(args);
+        int[] tamanhos = lerInteiros(opcoes.getOrDefault("tamanhos", "1000,100000,1000000"));
+        int[] listaThreads = lerInteiros(opcoes.getOrDefault("threads",
+                "1," + Math.max(2, Runtime.getRuntime().availableProcessors())));
+        int aquecimento = Integer.parseInt(opcoes.getOrDefault("aquecimento", "3"));
+        int iteracoes = Integer.parseInt(opcoes.getOrDefault("iteracoes", "5"));
+        int operacoes = Integer.parseInt(opcoes.getOrDefault("operacoes", "2000"));
+        String saida = opcoes.get("saida");
+
+        // Os relatórios imprimem no console; durante a medição a saída é descartada
+        PrintStream console = System.out;
+        PrintStream descarte = new PrintStream(OutputStream.nullOutputStream());
+        List<String> resultados = new ArrayList<>();
+        for (int tamanho : tamanhos) {
+            console.println("Carregando livro com " + tamanho + " reservas...");
+            Livro livro = new Livro(tamanho);
+            for (Map.Entry<String, Cenario> entry : cenarios().entrySet()) {
+                for (int threads : listaThreads) {
+                    double[] opsPorSegundo = new double[iteracoes];
+                    System.setOut(descarte);
+                    try {
+                        for (int i = 0; i < aquecimento + iteracoes; i++) {
+                            long duracao = rodada(livro, entry.getValue(), threads, operacoes, i);
+                            if (i >= aquecimento) {
+                                opsPorSegundo[i - aquecimento] = (double) threads * operacoes * 1e9 / duracao;
+                            }
+                        }
+                    } finally {
+                        System.setOut(console);
+                    }
+                    String resultado = json(entry.getKey(), tamanho, threads, operacoes, opsPorSegundo);
+                    console.println(resultado);
+                    resultados.add(resultado);
+                }
+            }
+        }
+
+        String documento = "[\n  " + String.join(",\n  ", resultados) + "\n]\n";
+        if (saida != null) {
+            Files.writeString(Path.of(saida), documento, StandardCharsets.UTF_8);
+            console.println("Resultados gravados em " + saida);
+        }
+    }
+
+    private static String json(String cenario, int tamanho, int threads, int operacoes, double[] opsPorSegundo) {
+        double media = 0;
+        double minimo = Double.MAX_VALUE;
+        double maximo = 0;
+        for (double valor : opsPorSegundo) {
+            media += valor;
+            minimo = Math.min(minimo, valor);
+            maximo = Math.max(maximo, valor);
+        }
+        media /= opsPorSegundo.length;
+        double variancia = 0;
+        for (double valor : opsPorSegundo) {
+            variancia += (valor - media) * (valor - media);
+        }
+        double desvio = opsPorSegundo.length > 1 ? Math.sqrt(variancia / (opsPorSegundo.length - 1)) : 0;
+        // Latência média por chamada vista por cada thread
+        double mediaNs = threads * 1e9 / media;
+        return String.format(Locale.ROOT,
+                "{\"cenario\": \"%s\", \"tamanho\": %d, \"threads\": %d, \"operacoesPorRodada\": %d, "
+                        + "\"rodadas\": %d, \"opsPorSegundo\": %.1f, \"desvioOpsPorSegundo\": %.1f, "
+                        + "\"minimoOpsPorSegundo\": %.1f, \"maximoOpsPorSegundo\": %.1f, \"latenciaMediaNs\": %.1f}",
+                cenario, tamanho, threads, operacoes, opsPorSegundo.length, media, desvio, minimo, maximo, mediaNs);
+    }
+
+    private static Map<String, String> lerOpcoes(String[] args) {
+        Map<String, String> opcoes = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Opção inválida: " + args[i]);
+            }
+            opcoes.put(args[i].substring(2), args[++i]);
+        }
+        return opcoes;
+    }
+
+    private static int[] lerInteiros(String lista) {
+        String[] partes = lista.split(",");
+        int[] valores = new int[partes.length];
+        for (int i = 0; i < partes.length; i++) {
+            valores[i] = Integer.parseInt(partes[i].trim());
+        }
+        return valores;
+    }
+}
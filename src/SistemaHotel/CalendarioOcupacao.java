@@ -0,0 +1,149 @@
+package SistemaHotel;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Ocupação por quarto e por noite em bitsets (um long[] por quarto).
+// Cobre a janela móvel [inicio, inicio + capacidade); o bit de cada dia é (epochDay mod capacidade).
+// Cada quarto deve ser acessado sob a trava do próprio quarto; avancarPara exige todas.
+public class CalendarioOcupacao {
+
+	private final int capacidade; // Em dias, múltiplo de 64
+	private long diaInicial;
+	private final Map<Integer, long[]> ocupacaoPorQuarto = new ConcurrentHashMap<>();
+
+	public CalendarioOcupacao(LocalDate inicio, int dias) {
+		if (dias <= 0) {
+			throw new IllegalArgumentException("O calendário deve cobrir pelo menos um dia.");
+		}
+		this.capacidade = ((dias + 63) / 64) * 64;
+		this.diaInicial = inicio.toEpochDay();
+	}
+
+	public void adicionarQuarto(int numeroQuarto) {
+		ocupacaoPorQuarto.putIfAbsent(numeroQuarto, new long[capacidade / 64]);
+	}
+
+	public LocalDate getInicio() {
+		return LocalDate.ofEpochDay(diaInicial);
+	}
+
+	// Primeiro dia fora da janela
+	public LocalDate getFim() {
+		return LocalDate.ofEpochDay(diaInicial + capacidade);
+	}
+
+	public boolean cobre(LocalDate inicio, LocalDate fim) {
+		return cobre(inicio.toEpochDay(), fim.toEpochDay());
+	}
+
+	// Variantes em epoch day, usadas pelo sistema sem converter datas
+	public boolean cobre(long inicio, long fim) {
+		return inicio >= diaInicial && fim <= diaInicial + capacidade;
+	}
+
+	// Noites fora da janela são ignoradas
+	public void ocupar(int numeroQuarto, LocalDate checkIn, LocalDate checkOut) {
+		ocupar(numeroQuarto, checkIn.toEpochDay(), checkOut.toEpochDay());
+	}
+
+	public void ocupar(int numeroQuarto, long checkIn, long checkOut) {
+		aplicar(ocupacaoPorQuarto.get(numeroQuarto), checkIn, checkOut, true);
+	}
+
+	public void liberar(int numeroQuarto, LocalDate checkIn, LocalDate checkOut) {
+		liberar(numeroQuarto, checkIn.toEpochDay(), checkOut.toEpochDay());
+	}
+
+	public void liberar(int numeroQuarto, long checkIn, long checkOut) {
+		aplicar(ocupacaoPorQuarto.get(numeroQuarto), checkIn, checkOut, false);
+	}
+
+	// Noites [inicio, fim) livres; só é exato quando cobre(inicio, fim)
+	public boolean estaLivre(int numeroQuarto, LocalDate inicio, LocalDate fim) {
+		return estaLivre(numeroQuarto, inicio.toEpochDay(), fim.toEpochDay());
+	}
+
+	public boolean estaLivre(int numeroQuarto, long inicio, long fim) {
+		long[] bits = ocupacaoPorQuarto.get(numeroQuarto);
+		long de = Math.max(inicio, diaInicial);
+		long ate = Math.min(fim, diaInicial + capacidade);
+		if (de >= ate) {
+			return true;
+		}
+		int posicao = (int) Math.floorMod(de, (long) capacidade);
+		int tamanho = (int) (ate - de);
+		int fimLinear = posicao + tamanho;
+		if (fimLinear <= capacidade) {
+			return !algumBit(bits, posicao, fimLinear);
+		}
+		return !algumBit(bits, posicao, capacidade) && !algumBit(bits, 0, fimLinear - capacidade);
+	}
+
+	// Desloca a janela para frente; os dias que saem são limpos e passam a representar os novos dias do fim
+	public void avancarPara(LocalDate novoInicio) {
+		long novoDiaInicial = novoInicio.toEpochDay();
+		if (novoDiaInicial < diaInicial) {
+			throw new IllegalArgumentException("O calendário só pode avançar.");
+		}
+		long dias = Math.min(novoDiaInicial - diaInicial, capacidade);
+		for (long[] bits : ocupacaoPorQuarto.values()) {
+			aplicar(bits, diaInicial, diaInicial + dias, false);
+		}
+		diaInicial = novoDiaInicial;
+	}
+
+	private void aplicar(long[] bits, long checkIn, long checkOut, boolean ocupado) {
+		long de = Math.max(checkIn, diaInicial);
+		long ate = Math.min(checkOut, diaInicial + capacidade);
+		if (de >= ate) {
+			return;
+		}
+		int posicao = (int) Math.floorMod(de, (long) capacidade);
+		int fimLinear = posicao + (int) (ate - de);
+		if (fimLinear <= capacidade) {
+			definirBits(bits, posicao, fimLinear, ocupado);
+		} else {
+			definirBits(bits, posicao, capacidade, ocupado);
+			definirBits(bits, 0, fimLinear - capacidade, ocupado);
+		}
+	}
+
+	private static void definirBits(long[] bits, int de, int ate, boolean valor) {
+		int primeiraPalavra = de >>> 6;
+		int ultimaPalavra = (ate - 1) >>> 6;
+		long mascaraInicial = -1L << de;
+		long mascaraFinal = -1L >>> -ate;
+		for (int i = primeiraPalavra; i <= ultimaPalavra; i++) {
+			long mascara = -1L;
+			if (i == primeiraPalavra) {
+				mascara &= mascaraInicial;
+			}
+			if (i == ultimaPalavra) {
+				mascara &= mascaraFinal;
+			}
+			bits[i] = valor ? bits[i] | mascara : bits[i] & ~mascara;
+		}
+	}
+
+	private static boolean algumBit(long[] bits, int de, int ate) {
+		int primeiraPalavra = de >>> 6;
+		int ultimaPalavra = (ate - 1) >>> 6;
+		long mascaraInicial = -1L << de;
+		long mascaraFinal = -1L >>> -ate;
+		for (int i = primeiraPalavra; i <= ultimaPalavra; i++) {
+			long mascara = -1L;
+			if (i == primeiraPalavra) {
+				mascara &= mascaraInicial;
+			}
+			if (i == ultimaPalavra) {
+				mascara &= mascaraFinal;
+			}
+			if ((bits[i] & mascara) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
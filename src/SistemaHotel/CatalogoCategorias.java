@@ -0,0 +1,63 @@
+package SistemaHotel;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Internação dos nomes de categoria: cada nome distinto recebe um código int estável,
+// e as comparações de categoria passam a ser entre ints. O catálogo só cresce, e só pela criação
+// de quartos; consultas e reservas usam buscar, que não registra nomes novos.
+final class CatalogoCategorias {
+
+	static final int SEM_CATEGORIA = -1;
+	static final int NAO_CATALOGADA = -2; // Nome que nenhum quarto usa
+
+	private static final Map<String, Integer> CODIGOS = new ConcurrentHashMap<>();
+	private static volatile String[] nomes = new String[0];
+
+	private CatalogoCategorias() {
+	}
+
+	// Somente na criação de quartos
+	static int registrar(String nome) {
+		if (nome == null) {
+			return SEM_CATEGORIA;
+		}
+		Integer codigo = CODIGOS.get(nome);
+		return codigo != null ? codigo : inserir(nome);
+	}
+
+	static int buscar(String nome) {
+		if (nome == null) {
+			return SEM_CATEGORIA;
+		}
+		Integer codigo = CODIGOS.get(nome);
+		return codigo != null ? codigo : NAO_CATALOGADA;
+	}
+
+	private static synchronized int inserir(String nome) {
+		Integer existente = CODIGOS.get(nome);
+		if (existente != null) {
+			return existente;
+		}
+		String[] novos = Arrays.copyOf(nomes, nomes.length + 1);
+		novos[nomes.length] = nome;
+		nomes = novos; // Publicado antes do código, para que nome(codigo) nunca falhe
+		CODIGOS.put(nome, nomes.length - 1);
+		return nomes.length - 1;
+	}
+
+	static String nome(int codigo) {
+		return codigo < 0 ? null : nomes[codigo];
+	}
+
+	// Códigos cujos nomes coincidem com 'nome' ignorando maiúsculas; a posição do código indica a coincidência
+	static boolean[] coincidenciasIgnorandoCaixa(String nome) {
+		String[] atuais = nomes;
+		boolean[] coincide = new boolean[atuais.length];
+		for (int i = 0; i < atuais.length; i++) {
+			coincide[i] = atuais[i].equalsIgnoreCase(nome);
+		}
+		return coincide;
+	}
+}
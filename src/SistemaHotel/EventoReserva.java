@@ -0,0 +1,139 @@
+package SistemaHotel;
+
+import java.util.List;
+
+// Evento estruturado emitido pelas operações do sistema. Guarda referências, não texto:
+// a formatação (incluindo Reserva.toString) acontece só quando o destino escreve o evento.
+public final class EventoReserva {
+
+	public enum Operacao {
+		ADICIONAR_QUARTO,
+		CADASTRAR_RESERVA,
+		CADASTRAR_LOTE,
+		CANCELAR_RESERVA,
+		CONSULTAR_RESERVA,
+		LISTAR_RESERVAS,
+		COMPACTAR_JOURNAL,
+		CONCLUIR_ESTADIAS,
+		ARQUIVAR_HISTORICO
+	}
+
+	private final long instante; // Milissegundos desde a época
+	private final Operacao operacao;
+	private final ResultadoOperacao resultado;
+	private final String clienteId;
+	private final int numeroQuarto;
+	private final Object detalhe; // Reserva, lista de reservas, quantidade ou texto, conforme a operação
+
+	EventoReserva(Operacao operacao, ResultadoOperacao resultado, String clienteId, int numeroQuarto, Object detalhe) {
+		this.instante = System.currentTimeMillis();
+		this.operacao = operacao;
+		this.resultado = resultado;
+		this.clienteId = clienteId;
+		this.numeroQuarto = numeroQuarto;
+		this.detalhe = detalhe;
+	}
+
+	static EventoReserva daReserva(Operacao operacao, ResultadoOperacao resultado, Reserva reserva, Object detalhe) {
+		return new EventoReserva(operacao, resultado, reserva.getClienteId(), reserva.getNumeroQuarto(), detalhe);
+	}
+
+	public long getInstante() {
+		return instante;
+	}
+
+	public Operacao getOperacao() {
+		return operacao;
+	}
+
+	public ResultadoOperacao getResultado() {
+		return resultado;
+	}
+
+	public String getClienteId() {
+		return clienteId;
+	}
+
+	public int getNumeroQuarto() {
+		return numeroQuarto;
+	}
+
+	public Object getDetalhe() {
+		return detalhe;
+	}
+
+	// Mensagem para o console, a mesma que as operações imprimiam diretamente
+	public String formatar() {
+		return switch (resultado) {
+			case SUCESSO -> formatarSucesso();
+			case DATAS_OBRIGATORIAS -> "Erro: Datas de check-in e check-out são obrigatórias.";
+			case CHECKOUT_ANTES_DO_CHECKIN -> "Erro: Check-out deve ser após o check-in.";
+			case DATA_FORA_DO_HORIZONTE -> "Erro: As datas devem estar a no máximo "
+					+ HotelReservaSistema.HORIZONTE_ANOS + " anos de hoje.";
+			case ESTADIA_EXCEDE_LIMITE -> "Erro: A estadia excede o limite de " + HotelReservaSistema.MAXIMO_NOITES + " noites.";
+			case QUARTO_NAO_ENCONTRADO -> "Erro: Quarto não encontrado.";
+			case QUARTO_JA_EXISTE -> "Erro: Quarto já existe.";
+			case CONFLITO_COM_RESERVA -> "Erro: Conflito com reserva existente: " + detalhe;
+			case CONFLITO_NO_LOTE -> "Erro: Conflito entre reservas do lote: " + detalhe;
+			case CAPACIDADE_ESGOTADA -> "Erro: Capacidade vendável da categoria esgotada para: " + detalhe;
+			case LOTE_EXCEDE_LIMITE -> "Erro: O lote excede o limite de " + detalhe + " reservas.";
+			case LOTE_EXCEDE_TAMANHO -> "Erro: O lote excede o limite de " + detalhe + " bytes do journal.";
+			case RESERVA_NAO_ENCONTRADA -> operacao == Operacao.CONSULTAR_RESERVA
+					? "Nenhuma reserva encontrada para o cliente ID: " + clienteId
+					: "Erro: Reserva não encontrada para o cliente ID: " + clienteId;
+			case HOTEL_NAO_ENCONTRADO -> "Erro: Hotel não encontrado: " + detalhe;
+			case PERIODO_ENCERRADO -> "Erro: Estadias com check-out até " + detalhe + " já foram concluídas.";
+			case FALHA_JOURNAL -> switch (operacao) {
+				case CONCLUIR_ESTADIAS -> "Erro ao concluir as estadias: " + detalhe;
+				case ARQUIVAR_HISTORICO -> "Erro ao arquivar o histórico: " + detalhe;
+				default -> "Erro ao compactar o journal: " + detalhe;
+			};
+			case FALHA_INTERNA -> "Erro inesperado (" + operacao + "): " + detalhe;
+		};
+	}
+
+	private String formatarSucesso() {
+		return switch (operacao) {
+			case ADICIONAR_QUARTO -> "Quarto " + numeroQuarto + " criado com sucesso!";
+			case CADASTRAR_RESERVA -> "Reserva cadastrada com sucesso!";
+			case CADASTRAR_LOTE -> "Reservas cadastradas com sucesso: " + detalhe;
+			case CANCELAR_RESERVA -> "Reserva cancelada com sucesso!";
+			case CONSULTAR_RESERVA -> "Reserva encontrada: " + detalhe;
+			case LISTAR_RESERVAS -> {
+				StringBuilder texto = new StringBuilder("Reservas ordenadas por data de check-in:");
+				for (Object reserva : (List<?>) detalhe) {
+					texto.append(System.lineSeparator()).append(reserva);
+				}
+				yield texto.toString();
+			}
+			case COMPACTAR_JOURNAL -> "Journal compactado.";
+			case CONCLUIR_ESTADIAS -> "Estadias concluídas: " + detalhe;
+			case ARQUIVAR_HISTORICO -> "Reservas arquivadas: " + detalhe;
+		};
+	}
+
+	// Uma linha chave=valor, para ferramentas de análise de log
+	public String formatarEstruturado() {
+		StringBuilder texto = new StringBuilder(128)
+				.append("instante=").append(instante)
+				.append(" operacao=").append(operacao)
+				.append(" resultado=").append(resultado);
+		if (clienteId != null) {
+			texto.append(" cliente=\"").append(clienteId).append('"');
+		}
+		if (numeroQuarto != 0) {
+			texto.append(" quarto=").append(numeroQuarto);
+		}
+		if (detalhe instanceof List<?> lista) {
+			texto.append(" quantidade=").append(lista.size());
+		} else if (detalhe != null) {
+			texto.append(" detalhe=\"").append(detalhe).append('"');
+		}
+		return texto.toString();
+	}
+
+	@Override
+	public String toString() {
+		return formatarEstruturado();
+	}
+}
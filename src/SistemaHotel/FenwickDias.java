@@ -0,0 +1,88 @@
+package SistemaHotel;
+
+// Árvore de Fenwick indexada por epoch day: soma de pontos e soma de prefixo em O(log n).
+// A faixa coberta cresce sob demanda (dobrando, com reconstrução em O(n)) até CAPACIDADE_MAXIMA dias;
+// uma data que exigiria mais é recusada antes de qualquer alteração. Não é thread-safe.
+final class FenwickDias {
+
+	static final int CAPACIDADE_MAXIMA = 1 << 18; // ~700 anos; o sistema só aceita datas a 10 anos de hoje
+
+	private final int capacidadeInicial;
+	private long base;        // Dia da posição 0
+	private long[] valores;   // Valores por dia, usados para reconstruir ao crescer
+	private long[] arvore;    // 1-indexada
+
+	FenwickDias() {
+		this(1024);
+	}
+
+	// Capacidade inicial em dias; árvores por quarto começam pequenas e crescem com o uso
+	FenwickDias(int capacidadeInicial) {
+		this.capacidadeInicial = capacidadeInicial;
+		valores = new long[0];
+		arvore = new long[1];
+	}
+
+	void adicionar(long dia, long delta) {
+		garantir(dia);
+		int posicao = (int) (dia - base);
+		valores[posicao] += delta;
+		for (int i = posicao + 1; i < arvore.length; i += i & -i) {
+			arvore[i] += delta;
+		}
+	}
+
+	// Soma dos dias <= dia
+	long somaAte(long dia) {
+		if (valores.length == 0 || dia < base) {
+			return 0;
+		}
+		int posicao = (int) Math.min(dia - base, valores.length - 1L);
+		long soma = 0;
+		for (int i = posicao + 1; i > 0; i -= i & -i) {
+			soma += arvore[i];
+		}
+		return soma;
+	}
+
+	// Soma dos dias em [de, ate]
+	long soma(long de, long ate) {
+		return de > ate ? 0 : somaAte(ate) - somaAte(de - 1);
+	}
+
+	private void garantir(long dia) {
+		if (valores.length == 0) {
+			base = dia - capacidadeInicial / 2;
+			valores = new long[capacidadeInicial];
+			arvore = new long[capacidadeInicial + 1];
+			return;
+		}
+		if (dia >= base && dia < base + valores.length) {
+			return;
+		}
+		long novoInicio = Math.min(base, dia);
+		long novoFim = Math.max(base + valores.length, dia + 1);
+		if (novoFim - novoInicio > CAPACIDADE_MAXIMA) {
+			throw new IllegalArgumentException("Data fora da faixa dos agregados: " + dia);
+		}
+		int capacidade = valores.length;
+		while (capacidade < novoFim - novoInicio) {
+			capacidade = Math.min(capacidade * 2, CAPACIDADE_MAXIMA);
+		}
+		// Folga para o lado em que cresceu, para que avanços sucessivos não reconstruam a cada dia
+		long novaBase = dia < base ? novoFim - capacidade : novoInicio;
+		long[] novosValores = new long[capacidade];
+		System.arraycopy(valores, 0, novosValores, (int) (base - novaBase), valores.length);
+		base = novaBase;
+		valores = novosValores;
+		arvore = new long[capacidade + 1];
+		// Construção em O(n): cada nó repassa sua soma ao pai
+		for (int i = 1; i <= capacidade; i++) {
+			arvore[i] += valores[i - 1];
+			int pai = i + (i & -i);
+			if (pai <= capacidade) {
+				arvore[pai] += arvore[i];
+			}
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package SistemaHotel;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histograma de latências em baldes log-lineares (no estilo do HdrHistogram): valores até 63 têm
+// balde próprio; acima disso cada potência de 2 é dividida em 32 baldes, o que limita o erro
+// relativo dos percentis a ~3%. Registrar é um incremento atômico, sem travas nem alocação.
+public final class HistogramaLatencia {
+
+	private static final int BITS_PRECISAO = 5;
+	private static final int SUB_BALDES = 1 << BITS_PRECISAO;
+	private static final int BALDES = (64 - BITS_PRECISAO) * SUB_BALDES;
+
+	private final AtomicLongArray contagens = new AtomicLongArray(BALDES);
+	private final LongAdder soma = new LongAdder();
+	private final AtomicLong maximo = new AtomicLong();
+
+	// 'valor' em nanossegundos (ou na unidade que o chamador escolher); negativos contam como 0
+	public void registrar(long valor) {
+		if (valor < 0) {
+			valor = 0;
+		}
+		contagens.incrementAndGet(indice(valor));
+		soma.add(valor);
+		long atual = maximo.get();
+		while (valor > atual && !maximo.compareAndSet(atual, valor)) {
+			atual = maximo.get();
+		}
+	}
+
+	private static int indice(long valor) {
+		if (valor < 2 * SUB_BALDES) {
+			return (int) valor;
+		}
+		int deslocamento = 63 - Long.numberOfLeadingZeros(valor) - BITS_PRECISAO;
+		return (deslocamento + 1) * SUB_BALDES + (int) (valor >>> deslocamento) - SUB_BALDES;
+	}
+
+	// Maior valor que cai no mesmo balde de 'indice'
+	private static long limiteSuperior(int indice) {
+		if (indice < 2 * SUB_BALDES) {
+			return indice;
+		}
+		int deslocamento = indice / SUB_BALDES - 1;
+		long mantissa = indice % SUB_BALDES + SUB_BALDES;
+		return ((mantissa + 1) << deslocamento) - 1;
+	}
+
+	public long getContagem() {
+		long total = 0;
+		for (int i = 0; i < BALDES; i++) {
+			total += contagens.get(i);
+		}
+		return total;
+	}
+
+	public long getSoma() {
+		return soma.sum();
+	}
+
+	public long getMaximo() {
+		return maximo.get();
+	}
+
+	public double getMedia() {
+		long contagem = getContagem();
+		return contagem == 0 ? 0 : soma.sum() / (double) contagem;
+	}
+
+	// Menor valor v tal que ao menos 'percentil'% dos registros são <= v (aproximado pelo balde)
+	public long percentil(double percentil) {
+		if (percentil < 0 || percentil > 100) {
+			throw new IllegalArgumentException("Percentil inválido: " + percentil);
+		}
+		long[] copia = new long[BALDES];
+		long total = 0;
+		for (int i = 0; i < BALDES; i++) {
+			copia[i] = contagens.get(i);
+			total += copia[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long alvo = Math.max(1, (long) Math.ceil(percentil / 100 * total));
+		long acumulado = 0;
+		for (int i = 0; i < BALDES; i++) {
+			acumulado += copia[i];
+			if (acumulado >= alvo) {
+				return Math.min(limiteSuperior(i), getMaximo());
+			}
+		}
+		return getMaximo();
+	}
+
+	// Não é atômico em relação a registros concorrentes; serve para iniciar uma nova janela
+	public void zerar() {
+		for (int i = 0; i < BALDES; i++) {
+			contagens.set(i, 0);
+		}
+		soma.reset();
+		maximo.set(0);
+	}
+}
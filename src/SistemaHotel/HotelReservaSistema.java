@@ -1,272 +1,1271 @@
 package SistemaHotel;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.Period;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
-public class HotelReservaSistema {
+// Thread-safe. Estruturas por quarto (árvore do quarto, calendário, status) ficam sob travas
+// listradas por numeroQuarto; escritas em reservas, historico e reservasPorCliente são
+// serializadas por travaIndices. Ordem de aquisição: trava do quarto antes de travaIndices.
+// Leituras de reservas e historico usam o snapshot publicado e não tomam travas.
+// Com journal, cada alteração é registrada dentro da mesma seção crítica que a ordena, antes de
+// mudar as estruturas em memória (um journal em falha recusa o registro e nada muda), e o método
+// só retorna depois que o registro está no disco.
+// As operações devolvem um ResultadoOperacao e emitem um EventoReserva depois de liberar as travas;
+// o texto para o usuário é produzido pelo RegistroEventos (console, por padrão).
+// Estadias encerradas saem das reservas ativas por concluirEstadias (ou agendarManutencao) e vão
+// para o histórico com status Concluída; assim os índices vivos só guardam estadias em curso e futuras.
+public final class HotelReservaSistema {
 
-	private RedBlackTree<Reserva> reservas = new RedBlackTree<>();
-	private RedBlackTree<Reserva> historico = new RedBlackTree<>();
-	private Map<Integer, Reserva> quartosDisponiveis = new HashMap<>();
+	private static final int DIAS_CALENDARIO = 1024; // Horizonte do calendário de ocupação (~2,8 anos)
+	private static final int NUMERO_TRAVAS = 64;
+	static final int MAXIMO_LOTE = 10_000; // Reservas por cadastrarReservas; o lote vira um único registro no journal
+	// Novas reservas: datas a até HORIZONTE_ANOS de hoje e estadias de até MAXIMO_NOITES. Limita a faixa
+	// de dias que os agregados por data precisam cobrir.
+	static final int HORIZONTE_ANOS = 10;
+	static final int MAXIMO_NOITES = 365;
+	static final int NOITES_ALERTA_CAPACIDADE = 30; // Janela de gerarAlertaCapacidade sem datas
 
-	public boolean cadastrarReserva(Reserva novaReserva) {
-		if (!validarReserva(novaReserva)) return false;
+	private volatile SnapshotReservas snapshot = new SnapshotReservas(
+			new PersistentRedBlackTree<>(), new PersistentRedBlackTree<>(), 0);
+	private final InventarioQuartos inventario = new InventarioQuartos();
+	private final MotorCapacidade capacidade = new MotorCapacidade(); // Alertas entregues depois das travas
+	private final MetricasReservas metricas = new MetricasReservas(capacidade); // Atualizado junto com o snapshot
+	private Map<Integer, RedBlackTree<Reserva>> reservasPorQuarto = new ConcurrentHashMap<>(); // Índice de intervalos por quarto
+	// Listas imutáveis, substituídas a cada escrita; os nós são handles na árvore do quarto
+	private Map<String, List<RedBlackTree<Reserva>.Node>> reservasPorCliente = new ConcurrentHashMap<>();
+	private CalendarioOcupacao calendario = new CalendarioOcupacao(LocalDate.now(), DIAS_CALENDARIO);
 
-		Reserva reservaConflitante = buscarConflito(novaReserva);
-		if (reservaConflitante != null) {
-			System.out.println("Erro: Conflito com reserva existente: " + reservaConflitante);
-			return false;
+	private final ReentrantLock[] travasQuarto = new ReentrantLock[NUMERO_TRAVAS];
+	private final ReentrantLock travaIndices = new ReentrantLock();
+
+	private final JournalReservas journal; // null = somente em memória
+	private final ArquivoHistorico arquivoHistorico; // Com journal: histórico antigo em <diretorio>/historico
+	private final Object travaArquivamento = new Object(); // Um arquivamento por vez
+	private final AtomicBoolean compactacaoEmAndamento = new AtomicBoolean();
+	// Epoch day até o qual as estadias foram concluídas; alterado com todas as travas de quarto,
+	// lido sob a trava de algum quarto
+	private int limiteConclusao = Reserva.SEM_DATA;
+	private ScheduledExecutorService manutencao; // Criado por agendarManutencao
+	private final RegistroEventos eventos;
+
+	// Instrumentação operacional (latências em ns), exposta por getInstrumentacao
+	private final RegistroMetricas instrumentacao = new RegistroMetricas();
+	private final HistogramaLatencia latenciaAdicionarQuarto = instrumentacao.histograma("adicionarQuarto");
+	private final HistogramaLatencia latenciaCadastrarReserva = instrumentacao.histograma("cadastrarReserva");
+	private final HistogramaLatencia latenciaCadastrarReservas = instrumentacao.histograma("cadastrarReservas");
+	private final HistogramaLatencia latenciaCancelarReserva = instrumentacao.histograma("cancelarReserva");
+	private final HistogramaLatencia latenciaCompactarJournal = instrumentacao.histograma("compactarJournal");
+	private final HistogramaLatencia latenciaConcluirEstadias = instrumentacao.histograma("concluirEstadias");
+	private final HistogramaLatencia latenciaConsultarReservaPorCliente = instrumentacao.histograma("consultarReservaPorCliente");
+	private final HistogramaLatencia latenciaObterReservasPorCliente = instrumentacao.histograma("obterReservasPorCliente");
+	private final HistogramaLatencia latenciaListarReservasPorCheckIn = instrumentacao.histograma("listarReservasPorCheckIn");
+	private final HistogramaLatencia latenciaConsultarDisponibilidade = instrumentacao.histograma("consultarDisponibilidade");
+	private final HistogramaLatencia latenciaListarQuartosDisponiveisPorCategoria = instrumentacao.histograma("listarQuartosDisponiveisPorCategoria");
+	private final HistogramaLatencia latenciaObterReservasNoPeriodo = instrumentacao.histograma("obterReservasNoPeriodo");
+	private final HistogramaLatencia latenciaObterReservasCanceladasNoPeriodo = instrumentacao.histograma("obterReservasCanceladasNoPeriodo");
+	private final HistogramaLatencia latenciaAvancarCalendario = instrumentacao.histograma("avancarCalendario");
+	private final HistogramaLatencia latenciaGerarRelatorioTaxaOcupacao = instrumentacao.histograma("gerarRelatorioTaxaOcupacao");
+	private final HistogramaLatencia latenciaGerarRelatorioCancelamentos = instrumentacao.histograma("gerarRelatorioCancelamentos");
+	private final HistogramaLatencia latenciaGerarRelatorioQuartosMaisEMenosReservados = instrumentacao.histograma("gerarRelatorioQuartosMaisEMenosReservados");
+	private final HistogramaLatencia latenciaGerarAlertaCapacidade = instrumentacao.histograma("gerarAlertaCapacidade");
+	private final HistogramaLatencia latenciaBuscarConflito = instrumentacao.histograma("buscarConflito");
+	private final HistogramaLatencia latenciaInsercaoArvore = instrumentacao.histograma("arvore.insert");
+	private final HistogramaLatencia latenciaRemocaoArvore = instrumentacao.histograma("arvore.delete");
+	private final LongAdder rotacoesArvore = instrumentacao.contador("arvore.rotacoes");
+	private final LongAdder insercoesArvore = instrumentacao.contador("arvore.insercoes");
+	private final LongAdder remocoesArvore = instrumentacao.contador("arvore.remocoes");
+	private final LongAdder conflitos = instrumentacao.contador("reservas.conflitos");
+
+	public HotelReservaSistema() {
+		this(RegistroEventos.console());
+	}
+
+	public HotelReservaSistema(RegistroEventos eventos) {
+		this(null, null, eventos);
+	}
+
+	// Sistema persistente: recupera o estado gravado em 'diretorio' e registra as alterações seguintes
+	public HotelReservaSistema(Path diretorio) throws IOException {
+		this(diretorio, RegistroEventos.console());
+	}
+
+	public HotelReservaSistema(Path diretorio, RegistroEventos eventos) throws IOException {
+		this(new JournalReservas(diretorio), new ArquivoHistorico(diretorio.resolve("historico")), eventos);
+		journal.recuperar(this);
+		// Segmentos sem registro no journal são de arquivamentos interrompidos; os demais entram nas métricas
+		arquivoHistorico.descartarPendentes();
+		arquivoHistorico.paraCadaContagemPorDia(metricas::registrarHistoricoArquivado);
+		arquivoHistorico.paraCadaOcupacao(arquivada -> metricas.registrarOcupacaoArquivada(arquivada,
+				inventario.obter(arquivada.numeroQuarto()).getCodigoCategoria()));
+		journal.iniciar();
+	}
+
+	private HotelReservaSistema(JournalReservas journal, ArquivoHistorico arquivoHistorico, RegistroEventos eventos) {
+		for (int i = 0; i < NUMERO_TRAVAS; i++) {
+			travasQuarto[i] = new ReentrantLock();
+		}
+		this.journal = journal;
+		this.arquivoHistorico = arquivoHistorico;
+		this.eventos = eventos;
+		instrumentacao.medidor("reservas.ativas", () -> snapshot.getReservas().size());
+		instrumentacao.medidor("reservas.historico", () -> snapshot.getHistorico().size());
+		if (arquivoHistorico != null) {
+			instrumentacao.medidor("reservas.historicoArquivado", arquivoHistorico::getQuantidade);
 		}
+		instrumentacao.medidor("arvore.alturaMaxima", this::alturaMaximaDasArvores);
+	}
+
+	int totalQuartos() {
+		return inventario.tamanho();
+	}
 
-		reservas.insert(novaReserva);
-		quartosDisponiveis.get(novaReserva.getNumeroQuarto()).setStatus("Reservado");
-		System.out.println("Reserva cadastrada com sucesso!");
-		return true;
+	// Latências, contadores e medidores operacionais; leitura sob demanda ou por despejo periódico
+	public RegistroMetricas getInstrumentacao() {
+		return instrumentacao;
 	}
 
-	private boolean validarReserva(Reserva reserva) {
-		if (reserva.getCheckIn() == null || reserva.getCheckOut() == null) {
-			System.out.println("Erro: Datas de check-in e check-out são obrigatórias.");
-			return false;
+	// Cada árvore publica a própria altura ao fim de cada alteração: O(quartos), sem travas de quarto
+	private long alturaMaximaDasArvores() {
+		int altura = 0;
+		for (RedBlackTree<Reserva> arvore : reservasPorQuarto.values()) {
+			altura = Math.max(altura, arvore.height());
 		}
-		if (reserva.getCheckIn().isAfter(reserva.getCheckOut())) {
-			System.out.println("Erro: Check-out deve ser após o check-in.");
-			return false;
+		return altura;
+	}
+
+	// Versão consistente de reservas e histórico; relatórios longos não atrasam as escritas
+	public SnapshotReservas obterSnapshot() {
+		return snapshot;
+	}
+
+	private ReentrantLock travaDoQuarto(int numeroQuarto) {
+		return travasQuarto[indiceTrava(numeroQuarto)];
+	}
+
+	private static int indiceTrava(int numeroQuarto) {
+		return Math.floorMod(numeroQuarto, NUMERO_TRAVAS);
+	}
+
+	public ResultadoOperacao cadastrarReserva(Reserva novaReserva) {
+		long inicioMedicao = System.nanoTime();
+		try {
+			ResultadoOperacao validacao = validarReserva(novaReserva);
+			if (!validacao.isSucesso()) {
+				eventos.registrar(EventoReserva.daReserva(EventoReserva.Operacao.CADASTRAR_RESERVA, validacao, novaReserva, null));
+				return validacao;
+			}
+			// Verificação de conflito e inserção são atômicas por quarto; quartos diferentes reservam em paralelo
+			ReentrantLock travaQuarto = travaDoQuarto(novaReserva.getNumeroQuarto());
+			Reserva reservaConflitante = null;
+			int limite;
+			boolean encerrado;
+			boolean esgotado = false;
+			long sequencia = 0;
+			travaQuarto.lock();
+			try {
+				limite = limiteConclusao;
+				encerrado = novaReserva.getCheckInDia() < limite;
+				if (!encerrado) {
+					reservaConflitante = buscarConflito(novaReserva);
+				}
+				if (!encerrado && reservaConflitante == null) {
+					travaIndices.lock();
+					try {
+						// Sob travaIndices: a capacidade da categoria abrange quartos de outras travas
+						esgotado = capacidade.primeiraSemCapacidade(List.of(novaReserva), this::categoriaDoQuarto) != null;
+						if (!esgotado) {
+							if (journal != null) {
+								sequencia = journal.registrarReserva(novaReserva);
+							}
+							inserirReserva(novaReserva);
+						}
+					} finally {
+						travaIndices.unlock();
+					}
+				}
+			} finally {
+				travaQuarto.unlock();
+			}
+
+			if (encerrado) {
+				eventos.registrar(EventoReserva.daReserva(EventoReserva.Operacao.CADASTRAR_RESERVA,
+						ResultadoOperacao.PERIODO_ENCERRADO, novaReserva, Reserva.paraData(limite)));
+				return ResultadoOperacao.PERIODO_ENCERRADO;
+			}
+			if (reservaConflitante != null) {
+				eventos.registrar(EventoReserva.daReserva(EventoReserva.Operacao.CADASTRAR_RESERVA,
+						ResultadoOperacao.CONFLITO_COM_RESERVA, novaReserva, reservaConflitante));
+				return ResultadoOperacao.CONFLITO_COM_RESERVA;
+			}
+			if (esgotado) {
+				eventos.registrar(EventoReserva.daReserva(EventoReserva.Operacao.CADASTRAR_RESERVA,
+						ResultadoOperacao.CAPACIDADE_ESGOTADA, novaReserva, novaReserva));
+				return ResultadoOperacao.CAPACIDADE_ESGOTADA;
+			}
+			aguardarJournal(sequencia);
+			capacidade.entregarAlertas();
+			eventos.registrar(EventoReserva.daReserva(EventoReserva.Operacao.CADASTRAR_RESERVA,
+					ResultadoOperacao.SUCESSO, novaReserva, null));
+			return ResultadoOperacao.SUCESSO;
+		} finally {
+			latenciaCadastrarReserva.registrar(System.nanoTime() - inicioMedicao);
 		}
-		if (!quartosDisponiveis.containsKey(reserva.getNumeroQuarto())) {
-			System.out.println("Erro: Quarto não encontrado.");
-			return false;
+	}
+
+	// Cadastra todas as reservas do lote ou nenhuma. O lote é ordenado por quarto e check-in, e os
+	// conflitos com o livro e dentro do próprio lote são verificados em uma passada por quarto.
+	public ResultadoOperacao cadastrarReservas(List<Reserva> novasReservas) {
+		long inicioMedicao = System.nanoTime();
+		try {
+			if (novasReservas.size() > MAXIMO_LOTE) {
+				eventos.registrar(new EventoReserva(EventoReserva.Operacao.CADASTRAR_LOTE,
+						ResultadoOperacao.LOTE_EXCEDE_LIMITE, null, 0, MAXIMO_LOTE));
+				return ResultadoOperacao.LOTE_EXCEDE_LIMITE;
+			}
+			for (Reserva reserva : novasReservas) {
+				ResultadoOperacao validacao = validarReserva(reserva);
+				if (!validacao.isSucesso()) {
+					eventos.registrar(EventoReserva.daReserva(EventoReserva.Operacao.CADASTRAR_LOTE, validacao, reserva, null));
+					return validacao;
+				}
+			}
+			if (novasReservas.isEmpty()) {
+				return ResultadoOperacao.SUCESSO;
+			}
+			// Codificado fora das travas; um registro acima do limite seria descartado na recuperação
+			byte[] registroLote = null;
+			if (journal != null) {
+				registroLote = JournalReservas.codificarLote(novasReservas);
+				if (!JournalReservas.cabeEmRegistro(registroLote)) {
+					eventos.registrar(new EventoReserva(EventoReserva.Operacao.CADASTRAR_LOTE,
+							ResultadoOperacao.LOTE_EXCEDE_TAMANHO, null, 0, JournalReservas.TAMANHO_MAXIMO_REGISTRO));
+					return ResultadoOperacao.LOTE_EXCEDE_TAMANHO;
+				}
+			}
+
+			List<Reserva> ordenadas = new ArrayList<>(novasReservas);
+			ordenadas.sort(Comparator.comparingInt(Reserva::getNumeroQuarto).thenComparingInt(Reserva::getCheckInDia));
+			// Travas em ordem crescente, a mesma usada por quem trava todas
+			int[] travas = ordenadas.stream().mapToInt(reserva -> indiceTrava(reserva.getNumeroQuarto()))
+					.distinct().sorted().toArray();
+			EventoReserva conflito;
+			long sequencia = 0;
+			for (int trava : travas) {
+				travasQuarto[trava].lock();
+			}
+			try {
+				conflito = buscarConflitoNoLote(ordenadas);
+				if (conflito == null) {
+					travaIndices.lock();
+					try {
+						// Cumulativo: as reservas do lote contam umas para as outras em cada noite
+						Reserva semCapacidade = capacidade.primeiraSemCapacidade(novasReservas, this::categoriaDoQuarto);
+						if (semCapacidade != null) {
+							conflito = EventoReserva.daReserva(EventoReserva.Operacao.CADASTRAR_LOTE,
+									ResultadoOperacao.CAPACIDADE_ESGOTADA, semCapacidade, semCapacidade);
+						} else {
+							if (journal != null) {
+								sequencia = journal.registrarLote(registroLote);
+							}
+							inserirReservas(novasReservas, ordenadas);
+						}
+					} finally {
+						travaIndices.unlock();
+					}
+				}
+			} finally {
+				for (int i = travas.length - 1; i >= 0; i--) {
+					travasQuarto[travas[i]].unlock();
+				}
+			}
+
+			if (conflito != null) {
+				eventos.registrar(conflito);
+				return conflito.getResultado();
+			}
+			aguardarJournal(sequencia);
+			capacidade.entregarAlertas();
+			eventos.registrar(new EventoReserva(EventoReserva.Operacao.CADASTRAR_LOTE,
+					ResultadoOperacao.SUCESSO, null, 0, novasReservas.size()));
+			return ResultadoOperacao.SUCESSO;
+		} finally {
+			latenciaCadastrarReservas.registrar(System.nanoTime() - inicioMedicao);
 		}
-		return true;
 	}
 
-	private Reserva buscarConflito(Reserva novaReserva) {
-		for (Reserva reserva : reservas.inOrderTraversal()) {
-			if (reserva.getNumeroQuarto() == novaReserva.getNumeroQuarto() &&
-					novaReserva.getCheckIn().isBefore(reserva.getCheckOut()) &&
-					novaReserva.getCheckOut().isAfter(reserva.getCheckIn())) {
-				return reserva;
+	// Lote ordenado por quarto e check-in, sob as travas dos quartos; devolve o evento de erro ou null
+	private EventoReserva buscarConflitoNoLote(List<Reserva> ordenadas) {
+		int quartoAnterior = 0;
+		int maiorCheckOut = Reserva.SEM_DATA;
+		for (int i = 0; i < ordenadas.size(); i++) {
+			Reserva reserva = ordenadas.get(i);
+			if (i == 0 || reserva.getNumeroQuarto() != quartoAnterior) {
+				quartoAnterior = reserva.getNumeroQuarto();
+				maiorCheckOut = Reserva.SEM_DATA;
+			}
+			if (reserva.getCheckInDia() < limiteConclusao) {
+				return EventoReserva.daReserva(EventoReserva.Operacao.CADASTRAR_LOTE,
+						ResultadoOperacao.PERIODO_ENCERRADO, reserva, Reserva.paraData(limiteConclusao));
+			}
+			if (reserva.getCheckInDia() < maiorCheckOut) {
+				return EventoReserva.daReserva(EventoReserva.Operacao.CADASTRAR_LOTE,
+						ResultadoOperacao.CONFLITO_NO_LOTE, reserva, reserva);
+			}
+			maiorCheckOut = Math.max(maiorCheckOut, reserva.getCheckOutDia());
+			Reserva reservaConflitante = buscarConflito(reserva);
+			if (reservaConflitante != null) {
+				return EventoReserva.daReserva(EventoReserva.Operacao.CADASTRAR_LOTE,
+						ResultadoOperacao.CONFLITO_COM_RESERVA, reserva, reservaConflitante);
 			}
 		}
 		return null;
 	}
 
-	public void cancelarReserva(String clienteId) {
-		Reserva reservaParaCancelar = reservas.search(new Reserva(clienteId), Reserva::compareByClienteId);
-		if (reservaParaCancelar != null) {
-			reservas.delete(reservaParaCancelar, Reserva::compareByClienteId);
-			historico.insert(reservaParaCancelar);
-			quartosDisponiveis.get(reservaParaCancelar.getNumeroQuarto()).setStatus("Disponível");
-			System.out.println("Reserva cancelada com sucesso!");
-		} else {
-			System.out.println("Erro: Reserva não encontrada para o cliente ID: " + clienteId);
+	// Quartos nunca são removidos: validar fora da trava do quarto não abre janela
+	private ResultadoOperacao validarReserva(Reserva reserva) {
+		ResultadoOperacao periodo = validarPeriodo(reserva.getCheckIn(), reserva.getCheckOut());
+		if (!periodo.isSucesso()) {
+			return periodo;
 		}
+		if (!inventario.contem(reserva.getNumeroQuarto())) {
+			return ResultadoOperacao.QUARTO_NAO_ENCONTRADO;
+		}
+		return ResultadoOperacao.SUCESSO;
 	}
 
-	public Reserva consultarReservaPorCliente(String clienteId) {
-		Reserva reservaBuscada = new Reserva(clienteId);
-		Reserva reservaEncontrada = reservas.search(reservaBuscada, Reserva::compareByClienteId);
+	static ResultadoOperacao validarPeriodo(LocalDate checkIn, LocalDate checkOut) {
+		if (checkIn == null || checkOut == null) {
+			return ResultadoOperacao.DATAS_OBRIGATORIAS;
+		}
+		if (!checkOut.isAfter(checkIn)) {
+			return ResultadoOperacao.CHECKOUT_ANTES_DO_CHECKIN;
+		}
+		LocalDate hoje = LocalDate.now();
+		if (checkIn.isBefore(hoje.minusYears(HORIZONTE_ANOS)) || checkOut.isAfter(hoje.plusYears(HORIZONTE_ANOS))) {
+			return ResultadoOperacao.DATA_FORA_DO_HORIZONTE;
+		}
+		if (ChronoUnit.DAYS.between(checkIn, checkOut) > MAXIMO_NOITES) {
+			return ResultadoOperacao.ESTADIA_EXCEDE_LIMITE;
+		}
+		return ResultadoOperacao.SUCESSO;
+	}
 
-		if (reservaEncontrada != null) {
-			System.out.println("Reserva encontrada: " + reservaEncontrada);
-			return reservaEncontrada;
-		} else {
-			System.out.println("Nenhuma reserva encontrada para o cliente ID: " + clienteId);
+	private Reserva buscarConflito(Reserva novaReserva) {
+		long inicioMedicao = System.nanoTime();
+		Reserva conflitante = reservasPorQuarto.get(novaReserva.getNumeroQuarto())
+				.findOverlap(novaReserva.getCheckInDia(), novaReserva.getCheckOutDia());
+		latenciaBuscarConflito.registrar(System.nanoTime() - inicioMedicao);
+		if (conflitante != null) {
+			conflitos.increment();
+		}
+		return conflitante;
+	}
+
+	// Sob a trava do quarto
+	private RedBlackTree<Reserva>.Node ocuparQuarto(Reserva reserva) {
+		RedBlackTree<Reserva> arvore = reservasPorQuarto.get(reserva.getNumeroQuarto());
+		long rotacoesAntes = arvore.getRotations();
+		long inicioMedicao = System.nanoTime();
+		RedBlackTree<Reserva>.Node noQuarto = arvore.insert(reserva);
+		latenciaInsercaoArvore.registrar(System.nanoTime() - inicioMedicao);
+		insercoesArvore.increment();
+		rotacoesArvore.add(arvore.getRotations() - rotacoesAntes);
+		calendario.ocupar(reserva.getNumeroQuarto(), reserva.getCheckInDia(), reserva.getCheckOutDia());
+		inventario.obter(reserva.getNumeroQuarto()).setStatus(StatusReserva.RESERVADO);
+		return noQuarto;
+	}
+
+	// Sob a trava do quarto
+	private void liberarQuarto(RedBlackTree<Reserva>.Node noQuarto) {
+		Reserva reserva = noQuarto.getValue();
+		RedBlackTree<Reserva> arvore = reservasPorQuarto.get(reserva.getNumeroQuarto());
+		long rotacoesAntes = arvore.getRotations();
+		long inicioMedicao = System.nanoTime();
+		arvore.deleteNode(noQuarto);
+		latenciaRemocaoArvore.registrar(System.nanoTime() - inicioMedicao);
+		remocoesArvore.increment();
+		rotacoesArvore.add(arvore.getRotations() - rotacoesAntes);
+		calendario.liberar(reserva.getNumeroQuarto(), reserva.getCheckInDia(), reserva.getCheckOutDia());
+		inventario.obter(reserva.getNumeroQuarto()).setStatus(StatusReserva.DISPONIVEL);
+	}
+
+	// Sob a trava do quarto e travaIndices. As métricas vêm primeiro: são as estruturas que crescem com
+	// as datas, e uma falha nelas deixa a árvore do quarto e o snapshot intocados.
+	private void inserirReserva(Reserva reserva) {
+		metricas.registrarReserva(reserva, categoriaDoQuarto(reserva));
+		RedBlackTree<Reserva>.Node noQuarto = ocuparQuarto(reserva);
+		SnapshotReservas atual = snapshot;
+		snapshot = new SnapshotReservas(atual.getReservas().insert(reserva),
+				atual.getHistorico(), atual.getVersao() + 1);
+		List<RedBlackTree<Reserva>.Node> registros = new ArrayList<>(
+				reservasPorCliente.getOrDefault(reserva.getClienteId(), Collections.emptyList()));
+		registros.add(noQuarto);
+		reservasPorCliente.put(reserva.getClienteId(), List.copyOf(registros));
+	}
+
+	private int categoriaDoQuarto(Reserva reserva) {
+		return inventario.obter(reserva.getNumeroQuarto()).getCodigoCategoria();
+	}
+
+	// Sob as travas dos quartos e travaIndices, com as métricas primeiro como em inserirReserva. Ocupa os
+	// quartos na ordem de 'ordenadas', publica o lote em uma única versão e entrega a cada cliente as
+	// suas reservas na ordem do lote.
+	private void inserirReservas(List<Reserva> reservas, List<Reserva> ordenadas) {
+		for (Reserva reserva : reservas) {
+			metricas.registrarReserva(reserva, categoriaDoQuarto(reserva));
+		}
+		Map<Reserva, RedBlackTree<Reserva>.Node> nosQuarto = new IdentityHashMap<>();
+		for (Reserva reserva : ordenadas) {
+			nosQuarto.put(reserva, ocuparQuarto(reserva));
+		}
+		SnapshotReservas atual = snapshot;
+		snapshot = new SnapshotReservas(atual.getReservas().insertAll(reservas),
+				atual.getHistorico(), atual.getVersao() + 1);
+		Map<String, List<RedBlackTree<Reserva>.Node>> porCliente = new LinkedHashMap<>();
+		for (Reserva reserva : reservas) {
+			porCliente.computeIfAbsent(reserva.getClienteId(), clienteId -> new ArrayList<>(
+					reservasPorCliente.getOrDefault(clienteId, Collections.emptyList())))
+					.add(nosQuarto.get(reserva));
+		}
+		for (Map.Entry<String, List<RedBlackTree<Reserva>.Node>> entry : porCliente.entrySet()) {
+			reservasPorCliente.put(entry.getKey(), List.copyOf(entry.getValue()));
+		}
+	}
+
+	// Sob travaIndices: retira a reserva mais antiga do cliente e a move para o histórico
+	private RedBlackTree<Reserva>.Node desindexarReservaMaisAntiga(String clienteId) {
+		List<RedBlackTree<Reserva>.Node> registros = reservasPorCliente.get(clienteId);
+		if (registros == null) {
 			return null;
 		}
+		RedBlackTree<Reserva>.Node registro = registros.get(0);
+		if (registros.size() == 1) {
+			reservasPorCliente.remove(clienteId);
+		} else {
+			reservasPorCliente.put(clienteId, List.copyOf(registros.subList(1, registros.size())));
+		}
+		Reserva reserva = registro.getValue();
+		metricas.registrarCancelamento(reserva, categoriaDoQuarto(reserva));
+		SnapshotReservas atual = snapshot;
+		snapshot = new SnapshotReservas(atual.getReservas().delete(reserva),
+				atual.getHistorico().insert(reserva), atual.getVersao() + 1);
+		return registro;
 	}
 
-	public List<Reserva> listarReservasPorCheckIn() {
-		List<Reserva> reservasOrdenadas = new ArrayList<>(reservas.inOrderTraversal());
-		System.out.println("Reservas ordenadas por data de check-in:");
-		for (Reserva reserva : reservasOrdenadas) {
-			System.out.println(reserva);
+	// Cancela a reserva mais antiga (ordem de cadastro) do cliente
+	public ResultadoOperacao cancelarReserva(String clienteId) {
+		long inicioMedicao = System.nanoTime();
+		try {
+			RedBlackTree<Reserva>.Node registro;
+			long sequencia = 0;
+			travaIndices.lock();
+			try {
+				if (journal != null && reservasPorCliente.containsKey(clienteId)) {
+					sequencia = journal.registrarCancelamento(clienteId);
+				}
+				registro = desindexarReservaMaisAntiga(clienteId);
+			} finally {
+				travaIndices.unlock();
+			}
+
+			if (registro == null) {
+				eventos.registrar(new EventoReserva(EventoReserva.Operacao.CANCELAR_RESERVA,
+						ResultadoOperacao.RESERVA_NAO_ENCONTRADA, clienteId, 0, null));
+				return ResultadoOperacao.RESERVA_NAO_ENCONTRADA;
+			}
+
+			// O quarto é liberado depois dos índices: no intervalo, um cadastro concorrente
+			// pode ver um falso conflito, mas nunca uma reserva dupla
+			ReentrantLock travaQuarto = travaDoQuarto(registro.getValue().getNumeroQuarto());
+			travaQuarto.lock();
+			try {
+				liberarQuarto(registro);
+			} finally {
+				travaQuarto.unlock();
+			}
+			aguardarJournal(sequencia);
+			capacidade.entregarAlertas();
+			eventos.registrar(EventoReserva.daReserva(EventoReserva.Operacao.CANCELAR_RESERVA,
+					ResultadoOperacao.SUCESSO, registro.getValue(), null));
+			return ResultadoOperacao.SUCESSO;
+		} finally {
+			latenciaCancelarReserva.registrar(System.nanoTime() - inicioMedicao);
 		}
-		return reservasOrdenadas;
 	}
 
-	public List<Reserva> consultarDisponibilidade(LocalDate data, String categoria) {
-		List<Reserva> quartosLivres = new ArrayList<>();
-		for (Reserva quarto : quartosDisponiveis.values()) {
-			if (quarto.getCategoriaQuarto().equalsIgnoreCase(categoria) &&
-					quarto.getStatus().equals("Disponível")) {
-				quartosLivres.add(quarto);
+	private void aguardarJournal(long sequencia) {
+		if (journal == null) {
+			return;
+		}
+		journal.aguardarDurabilidade(sequencia);
+		if (journal.precisaCompactar() && compactacaoEmAndamento.compareAndSet(false, true)) {
+			Thread compactacao = new Thread(() -> {
+				try {
+					compactarJournal();
+				} catch (IOException e) {
+					eventos.registrar(new EventoReserva(EventoReserva.Operacao.COMPACTAR_JOURNAL,
+							ResultadoOperacao.FALHA_JOURNAL, null, 0, e.getMessage()));
+				} finally {
+					compactacaoEmAndamento.set(false);
+				}
+			}, "compactacao-journal");
+			compactacao.setDaemon(true);
+			compactacao.start();
+		}
+	}
+
+	// Com 'ativo', cada compactação grava também o snapshot colunar do estado, para leitura por
+	// JournalReservas.abrirSnapshotColunar sem reconstruir o sistema
+	public void setSnapshotColunar(boolean ativo) {
+		if (journal == null) {
+			throw new IllegalStateException("O snapshot colunar requer um sistema com journal.");
+		}
+		journal.setSnapshotColunar(ativo);
+	}
+
+	// Grava um snapshot do estado atual e descarta os segmentos de journal que ele substitui.
+	// As escritas ficam pausadas apenas durante a troca de segmento e a cópia dos índices. A cópia espera
+	// um arquivamento em andamento: entre o registro e a retirada da memória, o histórico copiado
+	// duplicaria as reservas que os segmentos publicam.
+	public void compactarJournal() throws IOException {
+		long inicioMedicao = System.nanoTime();
+		try {
+			if (journal == null) {
+				return;
 			}
+			long segmento;
+			SnapshotReservas estado;
+			int limite;
+			Map<Integer, String> quartos = new TreeMap<>();
+			List<Reserva> reservasPorOrdemDeCadastro = new ArrayList<>();
+			synchronized (travaArquivamento) {
+				for (ReentrantLock travaQuarto : travasQuarto) {
+					travaQuarto.lock();
+				}
+				travaIndices.lock();
+				try {
+					segmento = journal.rotacionar();
+					estado = snapshot;
+					limite = limiteConclusao;
+					for (Quarto quarto : inventario.todos()) {
+						quartos.put(quarto.getNumeroQuarto(), quarto.getCategoriaQuarto());
+					}
+					// Por cliente, na ordem de cadastro, para que os cancelamentos futuros se repitam igual
+					for (List<RedBlackTree<Reserva>.Node> registros : reservasPorCliente.values()) {
+						for (RedBlackTree<Reserva>.Node registro : registros) {
+							reservasPorOrdemDeCadastro.add(registro.getValue());
+						}
+					}
+				} finally {
+					travaIndices.unlock();
+					for (int i = NUMERO_TRAVAS - 1; i >= 0; i--) {
+						travasQuarto[i].unlock();
+					}
+				}
+			}
+			journal.gravarSnapshot(segmento, quartos, reservasPorOrdemDeCadastro, estado, limite);
+		} finally {
+			latenciaCompactarJournal.registrar(System.nanoTime() - inicioMedicao);
 		}
-		return quartosLivres;
 	}
 
-	public void gerarRelatorioTaxaOcupacao(LocalDate inicio, LocalDate fim) {
-		long totalDias = inicio.until(fim).getDays() + 1;
-		long diasOcupados = reservas.inOrderTraversal().stream()
-				.filter(reserva -> reserva.getCheckIn().isBefore(fim) && reserva.getCheckOut().isAfter(inicio))
-				.mapToLong(reserva -> calcularSobreposicao(inicio, fim, reserva.getCheckIn(), reserva.getCheckOut()))
-				.sum();
-		double taxaOcupacao = (diasOcupados / (double) totalDias) * 100;
-		System.out.printf("Taxa de Ocupação: %.2f%%%n", taxaOcupacao);
+	// Move para os segmentos em disco o histórico com check-out anterior a 'limite' e devolve quantas
+	// reservas saíram da memória. Consultas e relatórios de cancelamentos continuam incluindo essas reservas.
+	// Sob travaIndices fica só o registro no journal, que fixa o conjunto arquivado (o mesmo que a
+	// recuperação retira nesse ponto); a gravação dos segmentos, a espera pelo disco e a publicação
+	// acontecem fora dela. Se o journal falhar, nada sai da memória e os .tmp são descartados na partida.
+	public int arquivarHistorico(LocalDate limite) throws IOException {
+		if (arquivoHistorico == null) {
+			throw new IllegalStateException("O arquivo do histórico requer um sistema com journal.");
+		}
+		int limiteDia = Reserva.paraDia(limite);
+		List<Reserva> arquivadas;
+		synchronized (travaArquivamento) {
+			arquivadas = historicoAntesDe(snapshot.getHistorico(), limiteDia);
+			if (arquivadas.isEmpty()) {
+				return 0;
+			}
+			long execucao = arquivoHistorico.proximaExecucao();
+			long sequencia = 0;
+			boolean registrado = false;
+			while (!registrado) {
+				arquivoHistorico.prepararSegmentos(execucao, arquivadas);
+				travaIndices.lock();
+				try {
+					// Fora do arquivamento o histórico só cresce: mesma quantidade é o mesmo conjunto
+					List<Reserva> atuais = historicoAntesDe(snapshot.getHistorico(), limiteDia);
+					if (atuais.size() == arquivadas.size()) {
+						sequencia = journal.registrarArquivamento(execucao, limiteDia);
+						registrado = true;
+					} else {
+						arquivadas = atuais;
+					}
+				} finally {
+					travaIndices.unlock();
+				}
+			}
+			journal.aguardarDurabilidade(sequencia);
+			arquivoHistorico.confirmar(execucao);
+			// Só as registradas: as que entraram no histórico depois do registro ficam, como na recuperação
+			travaIndices.lock();
+			try {
+				retirarDoHistorico(arquivadas);
+			} finally {
+				travaIndices.unlock();
+			}
+		}
+		eventos.registrar(new EventoReserva(EventoReserva.Operacao.ARQUIVAR_HISTORICO,
+				ResultadoOperacao.SUCESSO, null, 0, arquivadas.size()));
+		return arquivadas.size();
 	}
 
-	private long calcularSobreposicao(LocalDate inicio1, LocalDate fim1, LocalDate inicio2, LocalDate fim2) {
-		LocalDate inicio = inicio1.isAfter(inicio2) ? inicio1 : inicio2;
-		LocalDate fim = fim1.isBefore(fim2) ? fim1 : fim2;
-		return inicio.until(fim).getDays() + 1;
+	// Histórico em ordem de check-in; check-out > check-in, então a busca para no primeiro check-in >= limite
+	private static List<Reserva> historicoAntesDe(PersistentRedBlackTree<Reserva> historico, int limiteDia) {
+		List<Reserva> reservas = new ArrayList<>();
+		for (Reserva reserva : historico) {
+			if (reserva.getCheckInDia() >= limiteDia) {
+				break;
+			}
+			if (reserva.getCheckOutDia() < limiteDia) {
+				reservas.add(reserva);
+			}
+		}
+		return reservas;
 	}
 
-	public void adicionarQuartosProntos(List<int[]> quartosProntos) {
-		for (int[] quarto : quartosProntos) {
-			int numeroQuarto = quarto[0];
-			String categoriaQuarto = quarto[1] == 1 ? "Standard" : "Luxo"; // Exemplo de categorização baseada no ID
-			if (!adicionarQuarto(numeroQuarto, categoriaQuarto)) {
-				System.out.println("Erro ao adicionar quarto " + numeroQuarto);
+	// Sob travaIndices (ou na recuperação): uma única versão do histórico sem as reservas arquivadas
+	private void retirarDoHistorico(List<Reserva> arquivadas) {
+		SnapshotReservas atual = snapshot;
+		snapshot = new SnapshotReservas(atual.getReservas(), atual.getHistorico().deleteAll(arquivadas),
+				atual.getVersao() + 1);
+	}
+
+	// Conclui as estadias ativas com check-out até 'data': saem das árvores dos quartos, do calendário e
+	// do índice por cliente e entram no histórico com status Concluída, em uma única versão do snapshot.
+	// Depois disso, reservas com check-in anterior a 'data' são recusadas (PERIODO_ENCERRADO).
+	// As noites dessas estadias continuam nas métricas de ocupação. Devolve quantas foram concluídas.
+	public int concluirEstadias(LocalDate data) {
+		long inicioMedicao = System.nanoTime();
+		try {
+			int limiteDia = Reserva.paraDia(data);
+			int concluidas = 0;
+			long sequencia = 0;
+			for (ReentrantLock travaQuarto : travasQuarto) {
+				travaQuarto.lock();
+			}
+			travaIndices.lock();
+			try {
+				// Abaixo do limite atual não há estadias ativas: toda reserva aceita tem check-in >= limite
+				if (limiteDia > limiteConclusao) {
+					if (journal != null) {
+						sequencia = journal.registrarConclusao(limiteDia);
+					}
+					concluidas = concluirAte(limiteDia).size();
+				}
+			} finally {
+				travaIndices.unlock();
+				for (int i = NUMERO_TRAVAS - 1; i >= 0; i--) {
+					travasQuarto[i].unlock();
+				}
 			}
+			aguardarJournal(sequencia);
+			if (concluidas > 0) {
+				eventos.registrar(new EventoReserva(EventoReserva.Operacao.CONCLUIR_ESTADIAS,
+						ResultadoOperacao.SUCESSO, null, 0, concluidas));
+			}
+			return concluidas;
+		} finally {
+			latenciaConcluirEstadias.registrar(System.nanoTime() - inicioMedicao);
 		}
 	}
 
-	public boolean adicionarQuarto(int numeroQuarto, String categoria) {
-		if (quartosDisponiveis.containsKey(numeroQuarto)) {
-			System.out.println("Erro: Quarto já existe.");
-			return false;  
+	// Com todas as travas de quarto e travaIndices (ou na recuperação). As candidatas vêm do início da
+	// árvore por check-in: check-out <= limite implica check-in < limite, então a varredura para no
+	// primeiro check-in >= limite e custa as concluídas mais as estadias em curso.
+	private List<Reserva> concluirAte(int limiteDia) {
+		SnapshotReservas atual = snapshot;
+		List<Reserva> concluidas = new ArrayList<>();
+		for (Reserva reserva : atual.getReservas()) {
+			if (reserva.getCheckInDia() >= limiteDia) {
+				break;
+			}
+			if (reserva.getCheckOutDia() <= limiteDia) {
+				concluidas.add(reserva);
+			}
+		}
+		limiteConclusao = Math.max(limiteConclusao, limiteDia);
+		if (concluidas.isEmpty()) {
+			return concluidas;
 		}
 
-		Reserva novoQuarto = new Reserva();
-		novoQuarto.setNumeroQuarto(numeroQuarto);
-		novoQuarto.setCategoriaQuarto(categoria);
-		novoQuarto.setStatus("Disponível"); 
-		quartosDisponiveis.put(numeroQuarto, novoQuarto);
+		Set<Reserva> conjunto = Collections.newSetFromMap(new IdentityHashMap<>(concluidas.size() * 2));
+		conjunto.addAll(concluidas);
+		Set<String> clientes = new HashSet<>();
+		for (Reserva reserva : concluidas) {
+			if (!clientes.add(reserva.getClienteId())) {
+				continue;
+			}
+			List<RedBlackTree<Reserva>.Node> mantidos = new ArrayList<>();
+			for (RedBlackTree<Reserva>.Node registro : reservasPorCliente.get(reserva.getClienteId())) {
+				if (conjunto.contains(registro.getValue())) {
+					liberarQuarto(registro);
+				} else {
+					mantidos.add(registro);
+				}
+			}
+			if (mantidos.isEmpty()) {
+				reservasPorCliente.remove(reserva.getClienteId());
+			} else {
+				reservasPorCliente.put(reserva.getClienteId(), List.copyOf(mantidos));
+			}
+		}
+		for (Reserva reserva : concluidas) {
+			metricas.registrarConclusao(reserva);
+			reserva.setStatus(StatusReserva.CONCLUIDA);
+		}
+		snapshot = new SnapshotReservas(atual.getReservas().deleteAll(concluidas),
+				atual.getHistorico().insertAll(concluidas), atual.getVersao() + 1);
+		return concluidas;
+	}
 
-		System.out.println("Quarto " + numeroQuarto + " criado com sucesso!");
-		return true;  
+	// Roda a manutenção a cada 'intervalo' em uma thread de fundo, a primeira vez de imediato:
+	// conclui as estadias com check-out até hoje e, com 'retencaoHistorico', arquiva o histórico com
+	// check-out anterior a hoje menos a retenção (requer journal). Falhas viram eventos e não
+	// interrompem as execuções seguintes. Cancelar o ScheduledFuture devolvido para a manutenção.
+	public synchronized ScheduledFuture<?> agendarManutencao(Duration intervalo, Period retencaoHistorico) {
+		if (retencaoHistorico != null && arquivoHistorico == null) {
+			throw new IllegalStateException("O arquivo do histórico requer um sistema com journal.");
+		}
+		if (manutencao == null) {
+			manutencao = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+				Thread thread = new Thread(tarefa, "manutencao-reservas");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		long periodo = intervalo.toNanos();
+		return manutencao.scheduleAtFixedRate(() -> {
+			LocalDate hoje = LocalDate.now();
+			try {
+				concluirEstadias(hoje);
+			} catch (RuntimeException e) {
+				registrarFalhaManutencao(EventoReserva.Operacao.CONCLUIR_ESTADIAS, e);
+			}
+			if (retencaoHistorico != null) {
+				try {
+					arquivarHistorico(hoje.minus(retencaoHistorico));
+				} catch (IOException | RuntimeException e) {
+					registrarFalhaManutencao(EventoReserva.Operacao.ARQUIVAR_HISTORICO, e);
+				}
+			}
+		}, 0, periodo, TimeUnit.NANOSECONDS);
 	}
 
-	public List<Reserva> obterReservasNoPeriodo(LocalDate inicio, LocalDate fim) {
-		if (inicio == null || fim == null) {
-			System.out.println("Erro: As datas de início e fim não podem ser nulas.");
-			return new ArrayList<>();
+	public ScheduledFuture<?> agendarManutencao(Duration intervalo) {
+		return agendarManutencao(intervalo, null);
+	}
+
+	// Falhas de disco (journal ou segmentos) são FALHA_JOURNAL; as demais, FALHA_INTERNA
+	private void registrarFalhaManutencao(EventoReserva.Operacao tarefa, Exception e) {
+		boolean disco = e instanceof IOException || e instanceof UncheckedIOException;
+		eventos.registrar(new EventoReserva(tarefa, disco ? ResultadoOperacao.FALHA_JOURNAL : ResultadoOperacao.FALHA_INTERNA,
+				null, 0, disco ? e.getMessage() : String.valueOf(e)));
+	}
+
+	// Para a manutenção agendada, encerra o journal depois de gravar o que estiver pendente,
+	// e então o registro de eventos
+	public void fechar() throws IOException {
+		ScheduledExecutorService agendador;
+		synchronized (this) {
+			agendador = manutencao;
 		}
-		List<Reserva> reservasNoPeriodo = new ArrayList<>();
-		for (Reserva reserva : reservas.inOrderTraversal()) {
-			if (reserva.getCheckIn().isBefore(fim) && reserva.getCheckOut().isAfter(inicio)) {
-				reservasNoPeriodo.add(reserva);
+		if (agendador != null) {
+			agendador.close(); // Espera a execução em andamento
+		}
+		try {
+			if (journal != null) {
+				journal.close();
 			}
+		} finally {
+			eventos.fechar();
 		}
-		return reservasNoPeriodo;
 	}
 
-	public List<Reserva> obterReservasCanceladasNoPeriodo(LocalDate inicio, LocalDate fim) {
-		if (inicio == null || fim == null) {
-			System.out.println("Erro: As datas de início e fim não podem ser nulas.");
-			return new ArrayList<>();
+	// Métodos usados pelo JournalReservas na recuperação, antes de o sistema ser publicado
+	void restaurarQuarto(int numeroQuarto, String categoria) {
+		criarQuarto(numeroQuarto, categoria);
+	}
+
+	void restaurarReserva(Reserva reserva) {
+		inserirReserva(reserva);
+	}
+
+	// Carga do snapshot do journal, com o sistema ainda sem reservas: as árvores são montadas em bloco
+	// (ordenação paralela e construção em O(n)) em vez de uma inserção por reserva.
+	// 'historico' vem em ordem; 'reservas' vem na ordem de cadastro de cada cliente.
+	void restaurarEstadoCompactado(List<Reserva> historico, List<Reserva> reservas) {
+		Map<Integer, List<Reserva>> porQuarto = new HashMap<>();
+		for (Reserva reserva : reservas) {
+			porQuarto.computeIfAbsent(reserva.getNumeroQuarto(), numeroQuarto -> new ArrayList<>()).add(reserva);
 		}
-		List<Reserva> reservasCanceladasNoPeriodo = new ArrayList<>();
-		for (Reserva reserva : historico.inOrderTraversal()) {
-			if (reserva.getCheckOut() != null &&
-					reserva.getCheckOut().isAfter(inicio) &&
-					reserva.getCheckOut().isBefore(fim)) {
-				reservasCanceladasNoPeriodo.add(reserva);
+		porQuarto.entrySet().parallelStream().forEach(entry -> {
+			int numeroQuarto = entry.getKey();
+			RedBlackTree<Reserva> arvore = RedBlackTree.fromUnsorted(entry.getValue(), Reserva::compareTo);
+			reservasPorQuarto.put(numeroQuarto, arvore);
+			for (Reserva reserva : entry.getValue()) {
+				calendario.ocupar(numeroQuarto, reserva.getCheckInDia(), reserva.getCheckOutDia());
 			}
+			inventario.obter(numeroQuarto).setStatus(StatusReserva.RESERVADO);
+		});
+
+		Map<Reserva, RedBlackTree<Reserva>.Node> nosQuarto = new IdentityHashMap<>(reservas.size() * 2);
+		for (Integer numeroQuarto : porQuarto.keySet()) {
+			reservasPorQuarto.get(numeroQuarto).forEachNode(no -> nosQuarto.put(no.getValue(), no));
 		}
-		return reservasCanceladasNoPeriodo;
+		Map<String, List<RedBlackTree<Reserva>.Node>> porCliente = new LinkedHashMap<>();
+		for (Reserva reserva : reservas) {
+			porCliente.computeIfAbsent(reserva.getClienteId(), clienteId -> new ArrayList<>()).add(nosQuarto.get(reserva));
+			metricas.registrarReserva(reserva, categoriaDoQuarto(reserva));
+		}
+		for (Reserva reserva : historico) {
+			metricas.registrarHistorico(reserva, categoriaDoQuarto(reserva));
+		}
+		for (Map.Entry<String, List<RedBlackTree<Reserva>.Node>> entry : porCliente.entrySet()) {
+			reservasPorCliente.put(entry.getKey(), List.copyOf(entry.getValue()));
+		}
+
+		snapshot = new SnapshotReservas(PersistentRedBlackTree.fromUnsorted(reservas, Reserva::compareTo),
+				PersistentRedBlackTree.fromSorted(historico), snapshot.getVersao() + 1);
 	}
 
-	public RedBlackTree<Reserva> getReservasPorHotel() {
-		return reservas;
+	void restaurarCancelamento(String clienteId) {
+		RedBlackTree<Reserva>.Node registro = desindexarReservaMaisAntiga(clienteId);
+		if (registro != null) {
+			liberarQuarto(registro);
+		}
 	}
 
-	public List<Reserva> listarQuartosDisponiveisPorCategoria(LocalDate dataInicio, LocalDate dataFim, String categoria) {
-		if (dataInicio == null || dataFim == null) {
-			System.out.println("Erro: As datas de início e fim não podem ser nulas.");
-			return new ArrayList<>();
+	// As reservas retiradas já estão nos segmentos, que entram nas métricas ao fim da recuperação
+	void restaurarArquivamento(long execucao, int limiteDia) throws IOException {
+		arquivoHistorico.confirmar(execucao);
+		List<Reserva> arquivadas = historicoAntesDe(snapshot.getHistorico(), limiteDia);
+		if (arquivadas.isEmpty()) {
+			return;
+		}
+		retirarDoHistorico(arquivadas);
+		for (Reserva reserva : arquivadas) {
+			metricas.removerHistorico(reserva, categoriaDoQuarto(reserva));
 		}
+	}
+
+	void restaurarHistorico(Reserva reserva) {
+		SnapshotReservas atual = snapshot;
+		snapshot = new SnapshotReservas(atual.getReservas(),
+				atual.getHistorico().insert(reserva), atual.getVersao() + 1);
+		metricas.registrarHistorico(reserva, categoriaDoQuarto(reserva));
+	}
+
+	void restaurarConclusao(int limiteDia) {
+		concluirAte(limiteDia);
+	}
+
+	public Reserva consultarReservaPorCliente(String clienteId) {
+		long inicioMedicao = System.nanoTime();
+		try {
+			List<RedBlackTree<Reserva>.Node> registros = reservasPorCliente.get(clienteId);
+			Reserva reservaEncontrada = registros != null ? registros.get(0).getValue() : null;
 
-		List<Reserva> quartosDisponiveisLista = new ArrayList<>();
+			if (reservaEncontrada != null) {
+				eventos.registrar(EventoReserva.daReserva(EventoReserva.Operacao.CONSULTAR_RESERVA,
+						ResultadoOperacao.SUCESSO, reservaEncontrada, reservaEncontrada));
+				return reservaEncontrada;
+			} else {
+				eventos.registrar(new EventoReserva(EventoReserva.Operacao.CONSULTAR_RESERVA,
+						ResultadoOperacao.RESERVA_NAO_ENCONTRADA, clienteId, 0, null));
+				return null;
+			}
+		} finally {
+			latenciaConsultarReservaPorCliente.registrar(System.nanoTime() - inicioMedicao);
+		}
+	}
 
-		for (Reserva reserva : quartosDisponiveis.values()) {
-			if (reserva.getStatus().equals("Disponível") &&
-					reserva.getCategoriaQuarto().equalsIgnoreCase(categoria) &&
-					(dataFim.isBefore(reserva.getCheckIn()) || dataInicio.isAfter(reserva.getCheckOut()))) {
-				quartosDisponiveisLista.add(reserva);
+	public List<Reserva> obterReservasPorCliente(String clienteId) {
+		long inicioMedicao = System.nanoTime();
+		try {
+			List<Reserva> reservasDoCliente = new ArrayList<>();
+			for (RedBlackTree<Reserva>.Node registro : reservasPorCliente.getOrDefault(clienteId, Collections.emptyList())) {
+				reservasDoCliente.add(registro.getValue());
 			}
+			return reservasDoCliente;
+		} finally {
+			latenciaObterReservasPorCliente.registrar(System.nanoTime() - inicioMedicao);
 		}
+	}
 
-		return quartosDisponiveisLista;
+	public List<Reserva> listarReservasPorCheckIn() {
+		long inicioMedicao = System.nanoTime();
+		try {
+			List<Reserva> reservasOrdenadas = snapshot.getReservas().inOrderTraversal();
+			// Cópia: o chamador pode alterar a lista devolvida antes de o evento ser escrito
+			eventos.registrar(new EventoReserva(EventoReserva.Operacao.LISTAR_RESERVAS,
+					ResultadoOperacao.SUCESSO, null, 0, List.copyOf(reservasOrdenadas)));
+			return reservasOrdenadas;
+		} finally {
+			latenciaListarReservasPorCheckIn.registrar(System.nanoTime() - inicioMedicao);
+		}
 	}
 
-	public void gerarRelatorioQuartosMaisEMenosReservados() {
-		Map<Integer, Integer> contadorReservas = new HashMap<>();
+	// Quartos da categoria livres na noite de 'data'
+	public List<Quarto> consultarDisponibilidade(LocalDate data, String categoria) {
+		long inicioMedicao = System.nanoTime();
+		try {
+			if (data == null) {
+				System.out.println("Erro: A data não pode ser nula.");
+				return new ArrayList<>();
+			}
+			return quartosLivres(data, data.plusDays(1), categoria);
+		} finally {
+			latenciaConsultarDisponibilidade.registrar(System.nanoTime() - inicioMedicao);
+		}
+	}
 
-		// Contar reservas por quarto
-		for (Reserva reserva : reservas.inOrderTraversal()) {
-			contadorReservas.put(reserva.getNumeroQuarto(),
-					contadorReservas.getOrDefault(reserva.getNumeroQuarto(), 0) + 1);
+	// Percorre só os quartos da categoria, em ordem de número; categorias sem capacidade vendável em
+	// alguma noite do período não oferecem quartos
+	private List<Quarto> quartosLivres(LocalDate inicio, LocalDate fim, String categoria) {
+		List<Quarto> quartosLivres = new ArrayList<>();
+		int diaInicio = Reserva.paraDia(inicio);
+		int diaFim = Reserva.paraDia(fim);
+		Map<Integer, Boolean> vendavel = new HashMap<>();
+		for (int numeroQuarto : inventario.numerosDaCategoria(categoria)) {
+			if (!vendavel.computeIfAbsent(inventario.obter(numeroQuarto).getCodigoCategoria(),
+					codigo -> capacidade.temCapacidade(codigo, diaInicio, diaFim))) {
+				continue;
+			}
+			boolean livre;
+			ReentrantLock travaQuarto = travaDoQuarto(numeroQuarto);
+			travaQuarto.lock();
+			try {
+				livre = calendario.cobre(diaInicio, diaFim)
+						? calendario.estaLivre(numeroQuarto, diaInicio, diaFim)
+						: reservasPorQuarto.get(numeroQuarto).findOverlap(diaInicio, diaFim) == null;
+			} finally {
+				travaQuarto.unlock();
+			}
+			if (livre) {
+				quartosLivres.add(inventario.obter(numeroQuarto));
+			}
 		}
+		return quartosLivres;
+	}
 
-		if (contadorReservas.isEmpty()) {
-			System.out.println("Nenhuma reserva registrada.");
-			return;
+	// Desloca a janela do calendário e preenche os dias que entram com as reservas já existentes
+	public void avancarCalendario(LocalDate novoInicio) {
+		long inicioMedicao = System.nanoTime();
+		try {
+			for (ReentrantLock travaQuarto : travasQuarto) {
+				travaQuarto.lock();
+			}
+			try {
+				LocalDate fimAnterior = calendario.getFim();
+				calendario.avancarPara(novoInicio);
+				LocalDate inicioNovosDias = novoInicio.isAfter(fimAnterior) ? novoInicio : fimAnterior;
+				for (Map.Entry<Integer, RedBlackTree<Reserva>> entry : reservasPorQuarto.entrySet()) {
+					for (Reserva reserva : entry.getValue().overlapping(inicioNovosDias, calendario.getFim())) {
+						calendario.ocupar(entry.getKey(), reserva.getCheckInDia(), reserva.getCheckOutDia());
+					}
+				}
+			} finally {
+				for (int i = NUMERO_TRAVAS - 1; i >= 0; i--) {
+					travasQuarto[i].unlock();
+				}
+			}
+		} finally {
+			latenciaAvancarCalendario.registrar(System.nanoTime() - inicioMedicao);
 		}
+	}
 
-		int maisReservado = -1, menosReservado = -1, maxReservas = 0, minReservas = Integer.MAX_VALUE;
+	// Quarto-noites ocupadas sobre o total de quarto-noites, nas noites de inicio a fim (inclusive)
+	public void gerarRelatorioTaxaOcupacao(LocalDate inicio, LocalDate fim) {
+		long inicioMedicao = System.nanoTime();
+		try {
+			if (inicio == null || fim == null || fim.isBefore(inicio)) {
+				System.out.println("Erro: Período inválido.");
+				return;
+			}
+			int totalQuartos = inventario.tamanho();
+			if (totalQuartos == 0) {
+				System.out.println("Erro: Nenhum quarto disponível no sistema.");
+				return;
+			}
+			System.out.printf("Taxa de Ocupação: %.2f%%%n", calcularTaxaOcupacao(inicio, fim, totalQuartos));
+		} finally {
+			latenciaGerarRelatorioTaxaOcupacao.registrar(System.nanoTime() - inicioMedicao);
+		}
+	}
 
-		for (Map.Entry<Integer, Integer> entry : contadorReservas.entrySet()) {
-			int numeroQuarto = entry.getKey();
-			int qtdReservas = entry.getValue();
+	// Período já validado (fim >= inicio) e totalQuartos > 0
+	double calcularTaxaOcupacao(LocalDate inicio, LocalDate fim, int totalQuartos) {
+		long totalNoites = ChronoUnit.DAYS.between(inicio, fim) + 1;
+		long noitesOcupadas = metricas.noitesOcupadas(inicio, fim.plusDays(1));
+		return (noitesOcupadas / (double) (totalNoites * totalQuartos)) * 100;
+	}
 
-			if (qtdReservas > maxReservas) {
-				maxReservas = qtdReservas;
-				maisReservado = numeroQuarto;
+	public void adicionarQuartosProntos(List<int[]> quartosProntos) {
+		for (int[] quarto : quartosProntos) {
+			int numeroQuarto = quarto[0];
+			String categoriaQuarto = quarto[1] == 1 ? "Standard" : "Luxo"; // Exemplo de categorização baseada no ID
+			if (!adicionarQuarto(numeroQuarto, categoriaQuarto).isSucesso()) {
+				System.out.println("Erro ao adicionar quarto " + numeroQuarto);
+			}
+		}
+	}
+
+	public ResultadoOperacao adicionarQuarto(int numeroQuarto, String categoria) {
+		long inicioMedicao = System.nanoTime();
+		try {
+			long sequencia = 0;
+			boolean existente;
+			ReentrantLock travaQuarto = travaDoQuarto(numeroQuarto);
+			travaQuarto.lock();
+			try {
+				existente = inventario.contem(numeroQuarto);
+				if (!existente) {
+					if (journal != null) {
+						sequencia = journal.registrarQuarto(numeroQuarto, categoria);
+					}
+					criarQuarto(numeroQuarto, categoria);
+				}
+			} finally {
+				travaQuarto.unlock();
 			}
-			if (qtdReservas < minReservas) {
-				minReservas = qtdReservas;
-				menosReservado = numeroQuarto;
+
+			if (existente) {
+				eventos.registrar(new EventoReserva(EventoReserva.Operacao.ADICIONAR_QUARTO,
+						ResultadoOperacao.QUARTO_JA_EXISTE, null, numeroQuarto, null));
+				return ResultadoOperacao.QUARTO_JA_EXISTE;
 			}
+			aguardarJournal(sequencia);
+			eventos.registrar(new EventoReserva(EventoReserva.Operacao.ADICIONAR_QUARTO,
+					ResultadoOperacao.SUCESSO, null, numeroQuarto, null));
+			return ResultadoOperacao.SUCESSO;
+		} finally {
+			latenciaAdicionarQuarto.registrar(System.nanoTime() - inicioMedicao);
 		}
+	}
 
-		System.out.println("Quarto mais reservado: " + maisReservado + " com " + maxReservas + " reservas.");
+	// Sob a trava do quarto
+	private void criarQuarto(int numeroQuarto, String categoria) {
+		// Estruturas do quarto antes de publicá-lo no inventário
+		reservasPorQuarto.put(numeroQuarto, new RedBlackTree<>());
+		calendario.adicionarQuarto(numeroQuarto);
+		Quarto quarto = new Quarto(numeroQuarto, categoria);
+		capacidade.adicionarQuarto(quarto.getCodigoCategoria());
+		inventario.adicionar(quarto);
+	}
 
-		if (maxReservas == minReservas) {
-			System.out.println("Todos os quartos tiveram o mesmo número de reservas: " + maxReservas);
-		} else {
-			System.out.println("Quarto menos reservado: " + menosReservado + " com " + minReservas + " reservas.");
+	public List<Reserva> obterReservasNoPeriodo(LocalDate inicio, LocalDate fim) {
+		long inicioMedicao = System.nanoTime();
+		try {
+			if (inicio == null || fim == null) {
+				System.out.println("Erro: As datas de início e fim não podem ser nulas.");
+				return new ArrayList<>();
+			}
+			List<Reserva> reservasNoPeriodo = new ArrayList<>();
+			for (Reserva reserva : snapshot.getReservas().overlapping(inicio, fim)) {
+				reservasNoPeriodo.add(reserva);
+			}
+			return reservasNoPeriodo;
+		} finally {
+			latenciaObterReservasNoPeriodo.registrar(System.nanoTime() - inicioMedicao);
 		}
 	}
 
-	public void gerarRelatorioCancelamentos(LocalDate inicio, LocalDate fim) {
-		if (inicio == null || fim == null) {
-			System.out.println("Erro: Datas de início e fim não podem ser nulas.");
-			return;
+	public List<Reserva> obterReservasCanceladasNoPeriodo(LocalDate inicio, LocalDate fim) {
+		long inicioMedicao = System.nanoTime();
+		try {
+			if (inicio == null || fim == null) {
+				System.out.println("Erro: As datas de início e fim não podem ser nulas.");
+				return new ArrayList<>();
+			}
+			List<Reserva> reservasCanceladasNoPeriodo = new ArrayList<>();
+			// checkIn <= checkOut < fim, então basta percorrer as que sobrepõem [inicio, fim)
+			int diaFim = Reserva.paraDia(fim);
+			for (Reserva reserva : snapshot.getHistorico().overlapping(inicio, fim)) {
+				if (reserva.getCheckOutDia() < diaFim && reserva.getStatusReserva() != StatusReserva.CONCLUIDA) {
+					reservasCanceladasNoPeriodo.add(reserva);
+				}
+			}
+			// Só os segmentos arquivados cujos check-outs cruzam a janela são lidos
+			if (arquivoHistorico != null) {
+				int emMemoria = reservasCanceladasNoPeriodo.size();
+				arquivoHistorico.paraCadaComCheckOutEntre(Reserva.paraDia(inicio), diaFim, reserva -> {
+					if (reserva.getStatusReserva() != StatusReserva.CONCLUIDA) {
+						reservasCanceladasNoPeriodo.add(reserva);
+					}
+				});
+				if (reservasCanceladasNoPeriodo.size() > emMemoria) {
+					Collections.sort(reservasCanceladasNoPeriodo);
+				}
+			}
+			return reservasCanceladasNoPeriodo;
+		} finally {
+			latenciaObterReservasCanceladasNoPeriodo.registrar(System.nanoTime() - inicioMedicao);
 		}
+	}
+
+	// null se o quarto não existe
+	Quarto obterQuarto(int numeroQuarto) {
+		return inventario.obter(numeroQuarto);
+	}
+
+	// Agregados em tempo real para painéis; consultas em O(log n)
+	public MetricasReservas getMetricas() {
+		return metricas;
+	}
+
+	// Ocupação por noite e categoria, limites de alerta e margens de overbooking
+	public MotorCapacidade getCapacidade() {
+		return capacidade;
+	}
+
+	public PersistentRedBlackTree<Reserva> getReservasPorHotel() {
+		return snapshot.getReservas();
+	}
+
+	public List<Quarto> listarQuartosDisponiveisPorCategoria(LocalDate dataInicio, LocalDate dataFim, String categoria) {
+		long inicioMedicao = System.nanoTime();
+		try {
+			if (dataInicio == null || dataFim == null) {
+				System.out.println("Erro: As datas de início e fim não podem ser nulas.");
+				return new ArrayList<>();
+			}
 
-		int totalCancelamentos = 0;
-		for (Reserva reserva : historico.inOrderTraversal()) {
-			if (reserva.getCheckOut() != null &&
-					(reserva.getCheckOut().isAfter(inicio) || reserva.getCheckOut().isEqual(inicio)) &&
-					(reserva.getCheckOut().isBefore(fim) || reserva.getCheckOut().isEqual(fim))) {
-				totalCancelamentos++;
+			if (!dataFim.isAfter(dataInicio)) {
+				System.out.println("Erro: A data de fim deve ser após a data de início.");
+				return new ArrayList<>();
 			}
+
+			return quartosLivres(dataInicio, dataFim, categoria);
+		} finally {
+			latenciaListarQuartosDisponiveisPorCategoria.registrar(System.nanoTime() - inicioMedicao);
 		}
-		System.out.println("Número de cancelamentos entre " + inicio + " e " + fim + ": " + totalCancelamentos);
 	}
 
-	public void gerarAlertaCapacidade(double limiteOcupacao) {
-		int totalReservasAtivas = 0;
+	public void gerarRelatorioQuartosMaisEMenosReservados() {
+		long inicioMedicao = System.nanoTime();
+		try {
+			Map.Entry<Integer, Integer> maisReservado;
+			Map.Entry<Integer, Integer> menosReservado;
+			synchronized (metricas) {
+				maisReservado = metricas.quartoMaisReservado();
+				menosReservado = metricas.quartoMenosReservado();
+			}
+
+			if (maisReservado == null) {
+				System.out.println("Nenhuma reserva registrada.");
+				return;
+			}
+
+			int maxReservas = maisReservado.getValue(), minReservas = menosReservado.getValue();
+
+			System.out.println("Quarto mais reservado: " + maisReservado.getKey() + " com " + maxReservas + " reservas.");
 
-		for (Reserva reserva : reservas.inOrderTraversal()) {
-			if (reserva.getStatus().equals("Confirmada")) {
-				totalReservasAtivas++;
+			if (maxReservas == minReservas) {
+				System.out.println("Todos os quartos tiveram o mesmo número de reservas: " + maxReservas);
+			} else {
+				System.out.println("Quarto menos reservado: " + menosReservado.getKey() + " com " + minReservas + " reservas.");
 			}
+		} finally {
+			latenciaGerarRelatorioQuartosMaisEMenosReservados.registrar(System.nanoTime() - inicioMedicao);
 		}
+	}
 
-		int totalQuartos = quartosDisponiveis.size();
-		if (totalQuartos == 0) {
-			System.out.println("Erro: Nenhum quarto disponível no sistema.");
-			return;
+	public void gerarRelatorioCancelamentos(LocalDate inicio, LocalDate fim) {
+		long inicioMedicao = System.nanoTime();
+		try {
+			if (inicio == null || fim == null) {
+				System.out.println("Erro: Datas de início e fim não podem ser nulas.");
+				return;
+			}
+
+			long totalCancelamentos = metricas.cancelamentosComCheckOutEntre(inicio, fim);
+			System.out.println("Número de cancelamentos entre " + inicio + " e " + fim + ": " + totalCancelamentos);
+		} finally {
+			latenciaGerarRelatorioCancelamentos.registrar(System.nanoTime() - inicioMedicao);
 		}
+	}
 
-		double ocupacaoAtual = (totalReservasAtivas / (double) totalQuartos) * 100;
-		System.out.printf("Taxa de ocupação atual: %.2f%%%n", ocupacaoAtual);
+	// Próximas NOITES_ALERTA_CAPACIDADE noites a partir de hoje
+	public void gerarAlertaCapacidade(double limiteOcupacao) {
+		LocalDate hoje = LocalDate.now();
+		gerarAlertaCapacidade(limiteOcupacao, hoje, hoje.plusDays(NOITES_ALERTA_CAPACIDADE));
+	}
+
+	// Noites [inicio, fim) pelo MotorCapacidade, sobre a capacidade vendável do hotel
+	public void gerarAlertaCapacidade(double limiteOcupacao, LocalDate inicio, LocalDate fim) {
+		long inicioMedicao = System.nanoTime();
+		try {
+			if (inventario.tamanho() == 0) {
+				System.out.println("Erro: Nenhum quarto disponível no sistema.");
+				return;
+			}
+			if (!fim.isAfter(inicio)) {
+				System.out.println("Erro: A data de fim deve ser após a data de início.");
+				return;
+			}
+
+			double[] taxas = capacidade.taxasOcupacao(null, inicio, fim);
+			double maiorTaxa = 0;
+			int noitesAcima = 0;
+			LocalDate primeiraAcima = null;
+			for (int i = 0; i < taxas.length; i++) {
+				maiorTaxa = Math.max(maiorTaxa, taxas[i]);
+				if (taxas[i] >= limiteOcupacao && noitesAcima++ == 0) {
+					primeiraAcima = inicio.plusDays(i);
+				}
+			}
+			System.out.printf("Maior taxa de ocupação no período: %.2f%%%n", maiorTaxa);
+
+			if (noitesAcima > 0) {
+				System.out.println("Alerta: Capacidade ultrapassou " + limiteOcupacao + "% em " + noitesAcima
+						+ " noite(s), a primeira em " + primeiraAcima + ".");
+			}
+		} finally {
+			latenciaGerarAlertaCapacidade.registrar(System.nanoTime() - inicioMedicao);
+		}
+	}
 
-		if (ocupacaoAtual >= limiteOcupacao) {
-			System.out.println("Alerta: Capacidade ultrapassou " + limiteOcupacao + "%.");
+	// Ocupação de uma noite pelo MotorCapacidade, sobre a capacidade vendável (quartos mais overbooking)
+	public void gerarAlertaCapacidade(double limiteOcupacao, LocalDate noite) {
+		long inicioMedicao = System.nanoTime();
+		try {
+			if (inventario.tamanho() == 0) {
+				System.out.println("Erro: Nenhum quarto disponível no sistema.");
+				return;
+			}
+
+			double ocupacaoNaNoite = capacidade.taxaOcupacao(null, noite);
+			System.out.printf("Taxa de ocupação em %s: %.2f%%%n", noite, ocupacaoNaNoite);
+
+			if (ocupacaoNaNoite >= limiteOcupacao) {
+				System.out.println("Alerta: Capacidade ultrapassou " + limiteOcupacao + "%.");
+			}
+		} finally {
+			latenciaGerarAlertaCapacidade.registrar(System.nanoTime() - inicioMedicao);
 		}
 	}
 }
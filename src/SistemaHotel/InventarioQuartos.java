@@ -0,0 +1,84 @@
+package SistemaHotel;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Inventário de quartos com índice categoria -> números de quarto (int[] ordenado por categoria).
+// Consultas por categoria tocam só os quartos dela. Leituras sem trava; adições são serializadas
+// e publicam arrays novos, então um leitor sempre vê um array completo.
+public class InventarioQuartos {
+
+	private static final int[] VAZIO = new int[0];
+
+	private final Map<Integer, Quarto> quartos = new ConcurrentHashMap<>();
+	private volatile int[][] quartosPorCategoria = new int[0][]; // Posição = código da categoria
+
+	// false se o número já existe
+	public synchronized boolean adicionar(Quarto quarto) {
+		if (quartos.containsKey(quarto.getNumeroQuarto())) {
+			return false;
+		}
+		int codigo = quarto.getCodigoCategoria();
+		if (codigo != CatalogoCategorias.SEM_CATEGORIA) {
+			int[][] indice = quartosPorCategoria;
+			if (codigo >= indice.length) {
+				indice = Arrays.copyOf(indice, codigo + 1);
+			} else {
+				indice = indice.clone();
+			}
+			indice[codigo] = inserirOrdenado(indice[codigo] == null ? VAZIO : indice[codigo], quarto.getNumeroQuarto());
+			quartosPorCategoria = indice;
+		}
+		quartos.put(quarto.getNumeroQuarto(), quarto);
+		return true;
+	}
+
+	private static int[] inserirOrdenado(int[] numeros, int numero) {
+		int posicao = -Arrays.binarySearch(numeros, numero) - 1;
+		int[] novos = new int[numeros.length + 1];
+		System.arraycopy(numeros, 0, novos, 0, posicao);
+		novos[posicao] = numero;
+		System.arraycopy(numeros, posicao, novos, posicao + 1, numeros.length - posicao);
+		return novos;
+	}
+
+	public Quarto obter(int numeroQuarto) {
+		return quartos.get(numeroQuarto);
+	}
+
+	public boolean contem(int numeroQuarto) {
+		return quartos.containsKey(numeroQuarto);
+	}
+
+	public int tamanho() {
+		return quartos.size();
+	}
+
+	public Collection<Quarto> todos() {
+		return quartos.values();
+	}
+
+	// Números dos quartos da categoria (ignorando maiúsculas), em ordem crescente; não modificar
+	public int[] numerosDaCategoria(String categoria) {
+		boolean[] coincide = CatalogoCategorias.coincidenciasIgnorandoCaixa(categoria);
+		int[][] indice = quartosPorCategoria;
+		int[] resultado = VAZIO;
+		int encontradas = 0;
+		for (int codigo = 0; codigo < Math.min(coincide.length, indice.length); codigo++) {
+			if (coincide[codigo] && indice[codigo] != null) {
+				resultado = encontradas++ == 0 ? indice[codigo] : unir(resultado, indice[codigo]);
+			}
+		}
+		return resultado;
+	}
+
+	// Categorias que diferem só na caixa são raras; a união mantém a ordem crescente
+	private static int[] unir(int[] a, int[] b) {
+		int[] uniao = Arrays.copyOf(a, a.length + b.length);
+		System.arraycopy(b, 0, uniao, a.length, b.length);
+		Arrays.sort(uniao);
+		return uniao;
+	}
+}
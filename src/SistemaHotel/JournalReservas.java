@@ -0,0 +1,620 @@
+package SistemaHotel;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Journal binário append-only das alterações de HotelReservaSistema.
+// Group commit: registros são acumulados em memória e uma thread grava e faz fsync de cada lote;
+// quem chama aguardarDurabilidade só retorna depois que o próprio registro está no disco.
+// Travas explícitas em vez de monitores: uma thread virtual esperando o fsync libera a thread portadora.
+// Arquivos: journal-<n>.bin (segmentos), snapshot-<n>.bin (estado compactado anterior ao segmento n)
+// e, se habilitado, colunas-<n>.bin (o mesmo estado em SnapshotColunar, para leitores externos).
+// O histórico arquivado fica no subdiretório historico/ (ArquivoHistorico), fora da compactação.
+// Registro: [int tamanho][tipo + campos][int CRC32]; um registro incompleto no fim é descartado.
+// Arquivos criados ou renomeados só contam depois do fsync do diretório; nada é apagado antes disso.
+public class JournalReservas implements AutoCloseable {
+
+	static final byte QUARTO = 1;
+	static final byte RESERVA = 2;
+	static final byte CANCELAMENTO = 3;
+	static final byte HISTORICO = 4;
+	private static final byte FIM_SNAPSHOT = 5;
+	static final byte LOTE = 6; // Reservas de um cadastro em lote: aplicadas todas ou nenhuma
+	static final byte ARQUIVAMENTO = 7; // Histórico com checkOut anterior ao limite passou ao ArquivoHistorico
+	static final byte CONCLUSAO = 8; // Estadias com checkOut até o limite foram concluídas
+
+	private static final long LIMITE_SEGMENTO = 64L * 1024 * 1024;
+	// Verificado na gravação e na leitura: um registro maior seria tomado por um final corrompido
+	static final int TAMANHO_MAXIMO_REGISTRO = 16 << 20;
+
+	private final Path diretorio;
+	private final ReentrantLock travaCanal = new ReentrantLock(); // Serializa gravação e troca de segmento
+	private FileChannel canal;
+	private long segmentoAtual;
+	private long tamanhoSegmento;
+
+	// Protegidos por 'trava'
+	private final ReentrantLock trava = new ReentrantLock();
+	private final Condition registroPendente = trava.newCondition(); // Para o gravador
+	private final Condition loteGravado = trava.newCondition(); // Para quem aguarda durabilidade
+	private ByteArrayOutputStream pendente = new ByteArrayOutputStream();
+	private long ultimoRegistrado;
+	private long ultimoDuravel;
+	private IOException falha;
+	private boolean fechado;
+	private Thread gravador;
+
+	private volatile boolean snapshotColunar; // A recuperação não lê a cópia colunar: desligada por padrão
+
+	public JournalReservas(Path diretorio) throws IOException {
+		this.diretorio = diretorio;
+		Files.createDirectories(diretorio);
+	}
+
+	// Reconstrói o estado no sistema a partir do último snapshot válido e dos segmentos seguintes
+	void recuperar(HotelReservaSistema sistema) throws IOException {
+		TreeSet<Long> snapshots = listar("snapshot-");
+		TreeSet<Long> segmentos = listar("journal-");
+
+		long inicio = 0;
+		for (Long id : snapshots.descendingSet()) {
+			if (lerArquivo(arquivo("snapshot-", id), sistema, true)) {
+				inicio = id;
+				break;
+			}
+		}
+		for (Long id : segmentos.tailSet(inicio, true)) {
+			lerArquivo(arquivo("journal-", id), sistema, false);
+		}
+
+		long ultimo = Math.max(inicio, segmentos.isEmpty() ? 0 : segmentos.last() + 1);
+		segmentoAtual = ultimo;
+	}
+
+	// Abre um segmento novo e inicia a thread de gravação
+	void iniciar() throws IOException {
+		trava.lock();
+		try {
+			canal = abrirSegmento(segmentoAtual);
+			gravador = new Thread(this::gravarLotes, "journal-reservas");
+			gravador.setDaemon(true);
+			gravador.start();
+		} finally {
+			trava.unlock();
+		}
+	}
+
+	public long registrarQuarto(int numeroQuarto, String categoria) {
+		return acrescentar(codificarQuarto(numeroQuarto, categoria));
+	}
+
+	public long registrarReserva(Reserva reserva) {
+		return acrescentar(codificarReserva(RESERVA, reserva));
+	}
+
+	// Um único registro: na recuperação, um lote truncado é descartado por inteiro
+	public long registrarReservas(List<Reserva> reservas) {
+		return registrarLote(codificarLote(reservas));
+	}
+
+	// Lote já codificado por codificarLote, que pode rodar fora das travas do chamador
+	long registrarLote(byte[] registro) {
+		return acrescentar(registro);
+	}
+
+	static byte[] codificarLote(List<Reserva> reservas) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * reservas.size());
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(LOTE);
+			out.writeInt(reservas.size());
+			for (Reserva reserva : reservas) {
+				escreverReserva(out, reserva);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	static boolean cabeEmRegistro(byte[] registro) {
+		return registro.length <= TAMANHO_MAXIMO_REGISTRO;
+	}
+
+	public long registrarCancelamento(String clienteId) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(CANCELAMENTO);
+			escreverTexto(out, clienteId);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return acrescentar(bytes.toByteArray());
+	}
+
+	// Confirma a execução do arquivamento: na recuperação, publica os segmentos dela e retira
+	// do histórico em memória as reservas com checkOut < limite existentes naquele ponto
+	public long registrarArquivamento(long execucao, int limite) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(16);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(ARQUIVAMENTO);
+			out.writeLong(execucao);
+			out.writeInt(limite);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return acrescentar(bytes.toByteArray());
+	}
+
+	// Na recuperação, conclui de novo as estadias ativas com checkOut <= limite naquele ponto
+	public long registrarConclusao(int limite) {
+		return acrescentar(codificarConclusao(limite));
+	}
+
+	// Bloqueia até o registro 'sequencia' estar gravado e sincronizado no disco
+	public void aguardarDurabilidade(long sequencia) {
+		trava.lock();
+		try {
+			while (ultimoDuravel < sequencia && falha == null) {
+				loteGravado.awaitUninterruptibly();
+			}
+			if (ultimoDuravel < sequencia) {
+				throw new UncheckedIOException("Erro ao gravar o journal de reservas.", falha);
+			}
+		} finally {
+			trava.unlock();
+		}
+	}
+
+	// Com 'ativo', as próximas compactações gravam também colunas-<n>.bin
+	void setSnapshotColunar(boolean ativo) {
+		snapshotColunar = ativo;
+	}
+
+	public boolean precisaCompactar() {
+		trava.lock();
+		try {
+			return tamanhoSegmento > LIMITE_SEGMENTO;
+		} finally {
+			trava.unlock();
+		}
+	}
+
+	// Depois de uma falha de gravação o journal não aceita mais registros: quem registra antes de
+	// alterar a memória recebe a exceção sem ter mudado nada
+	private long acrescentar(byte[] registro) {
+		if (!cabeEmRegistro(registro)) {
+			throw new IllegalArgumentException("Registro de " + registro.length + " bytes excede o limite de "
+					+ TAMANHO_MAXIMO_REGISTRO + " bytes do journal.");
+		}
+		trava.lock();
+		try {
+			if (fechado) {
+				throw new IllegalStateException("Journal de reservas fechado.");
+			}
+			if (falha != null) {
+				throw new UncheckedIOException("Journal de reservas indisponível após falha de gravação.", falha);
+			}
+			escreverRegistro(pendente, registro);
+			tamanhoSegmento += registro.length + 8;
+			registroPendente.signal();
+			return ++ultimoRegistrado;
+		} finally {
+			trava.unlock();
+		}
+	}
+
+	private void gravarLotes() {
+		while (true) {
+			trava.lock();
+			try {
+				while (pendente.size() == 0 && !fechado) {
+					try {
+						registroPendente.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				if (pendente.size() == 0) {
+					return;
+				}
+			} finally {
+				trava.unlock();
+			}
+			try {
+				travaCanal.lock();
+				try {
+					gravarPendentes();
+				} finally {
+					travaCanal.unlock();
+				}
+			} catch (IOException e) {
+				trava.lock();
+				try {
+					falha = e;
+					loteGravado.signalAll();
+				} finally {
+					trava.unlock();
+				}
+				return;
+			}
+		}
+	}
+
+	// Chamado com travaCanal: retira o lote atual, grava e sincroniza no segmento aberto
+	private void gravarPendentes() throws IOException {
+		byte[] lote;
+		long sequenciaLote;
+		trava.lock();
+		try {
+			lote = pendente.toByteArray();
+			pendente.reset();
+			sequenciaLote = ultimoRegistrado;
+		} finally {
+			trava.unlock();
+		}
+		if (lote.length > 0) {
+			ByteBuffer buffer = ByteBuffer.wrap(lote);
+			while (buffer.hasRemaining()) {
+				canal.write(buffer);
+			}
+			canal.force(false);
+		}
+		trava.lock();
+		try {
+			ultimoDuravel = Math.max(ultimoDuravel, sequenciaLote);
+			loteGravado.signalAll();
+		} finally {
+			trava.unlock();
+		}
+	}
+
+	// Fecha o segmento atual e abre o próximo; os registros anteriores ficam todos no segmento antigo.
+	// O chamador deve impedir novas escritas durante a troca. Devolve o número do novo segmento.
+	long rotacionar() throws IOException {
+		travaCanal.lock();
+		try {
+			gravarPendentes();
+			canal.close();
+			trava.lock();
+			try {
+				segmentoAtual++;
+				tamanhoSegmento = 0;
+			} finally {
+				trava.unlock();
+			}
+			canal = abrirSegmento(segmentoAtual);
+			return segmentoAtual;
+		} finally {
+			travaCanal.unlock();
+		}
+	}
+
+	// Grava o estado anterior ao 'segmento' e apaga os arquivos que ele torna obsoletos.
+	// 'limiteConclusao' (epoch day, ou Reserva.SEM_DATA) vai como um registro CONCLUSAO no snapshot.
+	void gravarSnapshot(long segmento, Map<Integer, String> quartos, List<Reserva> reservas,
+			SnapshotReservas estado, int limiteConclusao) throws IOException {
+		Path temporario = diretorio.resolve("snapshot-" + segmento + ".tmp");
+		long total = 0;
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporario))) {
+			for (Map.Entry<Integer, String> quarto : quartos.entrySet()) {
+				escreverRegistro(out, codificarQuarto(quarto.getKey(), quarto.getValue()));
+				total++;
+			}
+			if (limiteConclusao != Reserva.SEM_DATA) {
+				escreverRegistro(out, codificarConclusao(limiteConclusao));
+				total++;
+			}
+			// Histórico antes das reservas ativas: na recuperação, a sequência de desempate mantém a ordem original
+			for (Reserva reserva : estado.getHistorico()) {
+				escreverRegistro(out, codificarReserva(HISTORICO, reserva));
+				total++;
+			}
+			for (Reserva reserva : reservas) {
+				escreverRegistro(out, codificarReserva(RESERVA, reserva));
+				total++;
+			}
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(16);
+			try (DataOutputStream dados = new DataOutputStream(bytes)) {
+				dados.writeByte(FIM_SNAPSHOT);
+				dados.writeLong(total);
+			}
+			escreverRegistro(out, bytes.toByteArray());
+		}
+		try (FileChannel arquivo = FileChannel.open(temporario, StandardOpenOption.WRITE)) {
+			arquivo.force(true);
+		}
+		Files.move(temporario, arquivo("snapshot-", segmento), StandardCopyOption.ATOMIC_MOVE);
+		sincronizarDiretorio(diretorio);
+		// Sem a cópia colunar deste segmento (rótulos demais), as anteriores também saem abaixo:
+		// uma cópia desatualizada não sobrevive à compactação, e a compactação não falha por ela
+		if (snapshotColunar) {
+			SnapshotColunar.gravar(arquivo("colunas-", segmento), estado);
+		}
+
+		for (Long id : listar("journal-").headSet(segmento)) {
+			Files.deleteIfExists(arquivo("journal-", id));
+		}
+		for (Long id : listar("snapshot-").headSet(segmento)) {
+			Files.deleteIfExists(arquivo("snapshot-", id));
+		}
+		for (Long id : listar("colunas-").headSet(segmento)) {
+			Files.deleteIfExists(arquivo("colunas-", id));
+		}
+	}
+
+	// Mapeia o snapshot colunar mais recente de 'diretorio', ou devolve null se não houver; não altera
+	// o diretório. Reflete o estado da última compactação, sem os registros do journal posteriores a ela.
+	public static SnapshotColunar abrirSnapshotColunar(Path diretorio) throws IOException {
+		if (!Files.isDirectory(diretorio)) {
+			return null;
+		}
+		TreeSet<Long> ids = listar(diretorio, "colunas-");
+		return ids.isEmpty() ? null : SnapshotColunar.abrir(diretorio.resolve("colunas-" + ids.last() + ".bin"));
+	}
+
+	@Override
+	public void close() throws IOException {
+		trava.lock();
+		try {
+			fechado = true;
+			registroPendente.signal();
+		} finally {
+			trava.unlock();
+		}
+		try {
+			if (gravador != null) {
+				gravador.join();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		travaCanal.lock();
+		try {
+			if (canal != null) {
+				canal.close();
+			}
+		} finally {
+			travaCanal.unlock();
+		}
+	}
+
+	// A entrada do segmento vai ao disco antes de qualquer registro que dependa dela
+	private FileChannel abrirSegmento(long id) throws IOException {
+		FileChannel segmento = FileChannel.open(arquivo("journal-", id),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		try {
+			sincronizarDiretorio(diretorio);
+		} catch (IOException e) {
+			segmento.close();
+			throw e;
+		}
+		return segmento;
+	}
+
+	// Torna duráveis as entradas criadas, renomeadas ou apagadas em 'diretorio' (POSIX)
+	static void sincronizarDiretorio(Path diretorio) throws IOException {
+		try (FileChannel canal = FileChannel.open(diretorio, StandardOpenOption.READ)) {
+			canal.force(true);
+		}
+	}
+
+	private Path arquivo(String prefixo, long id) {
+		return diretorio.resolve(prefixo + id + ".bin");
+	}
+
+	private TreeSet<Long> listar(String prefixo) throws IOException {
+		return listar(diretorio, prefixo);
+	}
+
+	private static TreeSet<Long> listar(Path diretorio, String prefixo) throws IOException {
+		TreeSet<Long> ids = new TreeSet<>();
+		try (Stream<Path> arquivos = Files.list(diretorio)) {
+			arquivos.map(caminho -> caminho.getFileName().toString())
+					.filter(nome -> nome.startsWith(prefixo) && nome.endsWith(".bin"))
+					.forEach(nome -> {
+						try {
+							ids.add(Long.parseLong(nome.substring(prefixo.length(), nome.length() - 4)));
+						} catch (NumberFormatException e) {
+							// Arquivo alheio ao journal
+						}
+					});
+		}
+		return ids;
+	}
+
+	// Aplica os registros do arquivo; um final corrompido ou incompleto é truncado nos segmentos.
+	// Para snapshots, devolve false (sem aplicar nada) se o marcador de fim não for encontrado.
+	private boolean lerArquivo(Path caminho, HotelReservaSistema sistema, boolean snapshot) throws IOException {
+		List<byte[]> registros = new ArrayList<>();
+		long validos = 0;
+		boolean completo = false;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(caminho)))) {
+			while (true) {
+				byte[] registro = lerRegistro(in);
+				if (registro == null) {
+					break;
+				}
+				validos += registro.length + 8;
+				if (registro[0] == FIM_SNAPSHOT) {
+					completo = true;
+					break;
+				}
+				if (snapshot) {
+					registros.add(registro);
+				} else {
+					aplicar(registro, sistema);
+				}
+			}
+		}
+		if (snapshot) {
+			if (!completo) {
+				return false;
+			}
+			aplicarSnapshot(registros, sistema);
+		} else if (validos < Files.size(caminho)) {
+			try (FileChannel arquivo = FileChannel.open(caminho, StandardOpenOption.WRITE)) {
+				arquivo.truncate(validos);
+				arquivo.force(true);
+			}
+		}
+		return true;
+	}
+
+	private static byte[] lerRegistro(DataInputStream in) throws IOException {
+		try {
+			int tamanho = in.readInt();
+			if (tamanho <= 0 || tamanho > TAMANHO_MAXIMO_REGISTRO) {
+				return null;
+			}
+			byte[] registro = new byte[tamanho];
+			in.readFully(registro);
+			int crcGravado = in.readInt();
+			CRC32 crc = new CRC32();
+			crc.update(registro);
+			return (int) crc.getValue() == crcGravado ? registro : null;
+		} catch (EOFException e) {
+			return null;
+		}
+	}
+
+	// Quartos um a um; histórico e reservas vão juntos para a montagem em bloco das árvores
+	private static void aplicarSnapshot(List<byte[]> registros, HotelReservaSistema sistema) throws IOException {
+		List<Reserva> historico = new ArrayList<>();
+		List<Reserva> reservas = new ArrayList<>();
+		for (byte[] registro : registros) {
+			switch (registro[0]) {
+				case HISTORICO -> historico.add(decodificarReserva(dadosSemTipo(registro)));
+				case RESERVA -> reservas.add(decodificarReserva(dadosSemTipo(registro)));
+				default -> aplicar(registro, sistema);
+			}
+		}
+		sistema.restaurarEstadoCompactado(historico, reservas);
+	}
+
+	private static DataInputStream dadosSemTipo(byte[] registro) {
+		return new DataInputStream(new ByteArrayInputStream(registro, 1, registro.length - 1));
+	}
+
+	private static void aplicar(byte[] registro, HotelReservaSistema sistema) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(registro));
+		byte tipo = in.readByte();
+		switch (tipo) {
+			case QUARTO -> sistema.restaurarQuarto(in.readInt(), lerTexto(in));
+			case RESERVA -> sistema.restaurarReserva(decodificarReserva(in));
+			case CANCELAMENTO -> sistema.restaurarCancelamento(lerTexto(in));
+			case HISTORICO -> sistema.restaurarHistorico(decodificarReserva(in));
+			case ARQUIVAMENTO -> sistema.restaurarArquivamento(in.readLong(), in.readInt());
+			case CONCLUSAO -> sistema.restaurarConclusao(in.readInt());
+			case LOTE -> {
+				int quantidade = in.readInt();
+				for (int i = 0; i < quantidade; i++) {
+					sistema.restaurarReserva(decodificarReserva(in));
+				}
+			}
+			default -> throw new IOException("Tipo de registro desconhecido no journal: " + tipo);
+		}
+	}
+
+	private static byte[] codificarQuarto(int numeroQuarto, String categoria) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(QUARTO);
+			out.writeInt(numeroQuarto);
+			escreverTexto(out, categoria);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static byte[] codificarConclusao(int limite) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(8);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(CONCLUSAO);
+			out.writeInt(limite);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static byte[] codificarReserva(byte tipo, Reserva reserva) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(tipo);
+			escreverReserva(out, reserva);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	// Também usado pelos segmentos do ArquivoHistorico
+	static void escreverReserva(DataOutputStream out, Reserva reserva) throws IOException {
+		escreverTexto(out, reserva.getClienteId());
+		out.writeInt(reserva.getNumeroQuarto());
+		out.writeLong(reserva.getCheckInDia());
+		out.writeLong(reserva.getCheckOutDia());
+		escreverTexto(out, reserva.getCategoriaQuarto());
+		escreverTexto(out, reserva.getStatus());
+	}
+
+	static Reserva decodificarReserva(DataInputStream in) throws IOException {
+		String clienteId = lerTexto(in);
+		int numeroQuarto = in.readInt();
+		LocalDate checkIn = LocalDate.ofEpochDay(in.readLong());
+		LocalDate checkOut = LocalDate.ofEpochDay(in.readLong());
+		String categoria = lerTexto(in);
+		String status = lerTexto(in);
+		Reserva reserva = new Reserva(clienteId, numeroQuarto, "", checkIn, checkOut, categoria);
+		reserva.setStatus(status);
+		return reserva;
+	}
+
+	private static void escreverRegistro(OutputStream out, byte[] registro) {
+		CRC32 crc = new CRC32();
+		crc.update(registro);
+		try {
+			DataOutputStream dados = new DataOutputStream(out);
+			dados.writeInt(registro.length);
+			dados.write(registro);
+			dados.writeInt((int) crc.getValue());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void escreverTexto(DataOutputStream out, String texto) throws IOException {
+		out.writeBoolean(texto != null);
+		if (texto != null) {
+			out.writeUTF(texto);
+		}
+	}
+
+	private static String lerTexto(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+}
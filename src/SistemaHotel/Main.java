@@ -12,6 +12,7 @@ public class Main {
     public static void main(String[] args) {
         // Pré-definindo quartos no sistema
         inicializarQuartos();
+        inicializarCapacidade();
 
         boolean sair = false;
 
@@ -26,7 +27,8 @@ public class Main {
                 case 4 -> gerarRelatorios();
                 case 5 -> consultarReservaPorCliente();
                 case 6 -> listarReservasPorCheckIn();
-                case 7 -> {
+                case 7 -> configurarCapacidade();
+                case 8 -> {
                     System.out.println("Saindo do sistema...");
                     sair = true;
                 }
@@ -47,6 +49,12 @@ public class Main {
         System.out.println("Quartos pré-definidos adicionados ao sistema.");
     }
 
+    // Alertas chegam no momento do cadastro ou cancelamento que cruza o limite
+    private static void inicializarCapacidade() {
+        sistema.getCapacidade().adicionarOuvinte(alerta -> System.out.println(alerta.formatar()));
+        sistema.getCapacidade().definirLimite(null, 90.0);
+    }
+
     private static void exibirMenu() {
         System.out.println("\n=== Sistema de Reservas de Hotel ===");
         System.out.println("1. Criar Reserva");
@@ -55,7 +63,8 @@ public class Main {
         System.out.println("4. Gerar Relatórios");
         System.out.println("5. Consultar Reserva por Cliente");
         System.out.println("6. Listar Reservas por Data de Check-in");
-        System.out.println("7. Sair");
+        System.out.println("7. Configurar Capacidade");
+        System.out.println("8. Sair");
         System.out.print("Escolha uma opção: ");
     }
 
@@ -85,7 +94,7 @@ public class Main {
             LocalDate checkOut = LocalDate.parse(scanner.nextLine());
 
             Reserva novaReserva = new Reserva(clienteId, numeroQuarto, "", checkIn, checkOut, categoria);
-            if (sistema.cadastrarReserva(novaReserva)) {
+            if (sistema.cadastrarReserva(novaReserva).isSucesso()) {
                 System.out.println("Reserva criada com sucesso!");
             } else {
                 System.out.println("Erro ao criar a reserva. Verifique a disponibilidade.");
@@ -110,13 +119,13 @@ public class Main {
             System.out.print("Digite a categoria do quarto (Standard, Luxo, Premium): ");
             String categoria = scanner.nextLine();
 
-            List<Reserva> disponiveis = sistema.consultarDisponibilidade(data, categoria);
+            List<Quarto> disponiveis = sistema.consultarDisponibilidade(data, categoria);
 
             if (disponiveis.isEmpty()) {
                 System.out.println("Nenhum quarto disponível para a data e categoria informadas.");
             } else {
                 System.out.println("Quartos disponíveis:");
-                for (Reserva quarto : disponiveis) {
+                for (Quarto quarto : disponiveis) {
                     System.out.println(quarto);
                 }
             }
@@ -143,12 +152,37 @@ public class Main {
             sistema.gerarRelatorioQuartosMaisEMenosReservados();
 
             System.out.println("\nRelatório de Alerta de Capacidade:");
-            sistema.gerarAlertaCapacidade(90.0);
+            sistema.gerarAlertaCapacidade(90.0, inicio, fim.plusDays(1));
         } catch (Exception e) {
             System.out.println("Erro ao gerar relatórios: " + e.getMessage());
         }
     }
 
+    private static void configurarCapacidade() {
+        try {
+            System.out.print("Digite a categoria (vazio para o hotel inteiro): ");
+            String categoria = scanner.nextLine().trim();
+            String alvo = categoria.isEmpty() ? null : categoria;
+
+            System.out.print("Digite o limite de alerta em % (vazio para manter): ");
+            String limite = scanner.nextLine().trim();
+            if (!limite.isEmpty()) {
+                sistema.getCapacidade().definirLimite(alvo, Double.parseDouble(limite));
+            }
+
+            if (alvo != null) {
+                System.out.print("Digite a margem de overbooking em quartos (vazio para manter): ");
+                String margem = scanner.nextLine().trim();
+                if (!margem.isEmpty()) {
+                    sistema.getCapacidade().definirOverbooking(alvo, Integer.parseInt(margem));
+                }
+            }
+            System.out.println("Capacidade configurada.");
+        } catch (Exception e) {
+            System.out.println("Erro ao configurar a capacidade: " + e.getMessage());
+        }
+    }
+
     private static void consultarReservaPorCliente() {
         System.out.print("Digite o ID do cliente para consultar a reserva: ");
         String clienteId = scanner.nextLine();
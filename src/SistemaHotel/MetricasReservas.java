@@ -0,0 +1,193 @@
+package SistemaHotel;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Agregados mantidos a cada cadastro, cancelamento e conclusão de estadia, para que os relatórios não percorram as árvores.
+// Atualizado pelo HotelReservaSistema sob travaIndices; as leituras podem vir de qualquer thread.
+public class MetricasReservas {
+
+	// Quarto-noites ocupadas por dia: no hotel, por categoria do quarto e por quarto
+	private final OcupacaoPorDia ocupacao = new OcupacaoPorDia(1024);
+	private final Map<Integer, OcupacaoPorDia> ocupacaoPorCategoria = new HashMap<>();
+	private final Map<Integer, OcupacaoPorDia> ocupacaoPorQuarto = new HashMap<>();
+	private final FenwickDias cancelamentosPorCheckOut = new FenwickDias();
+
+	// Reservas não canceladas (ativas e concluídas) por quarto, com rankings por contagem
+	private final RankingQuartos ranking = new RankingQuartos();
+
+	private long reservasConfirmadas;
+
+	// Quartos ocupados por noite para os limites de capacidade; alimentado por ocuparNoites
+	private final MotorCapacidade capacidade;
+
+	public MetricasReservas() {
+		this(new MotorCapacidade());
+	}
+
+	MetricasReservas(MotorCapacidade capacidade) {
+		this.capacidade = capacidade;
+	}
+
+	// 'categoriaQuarto' é o código da categoria do quarto no inventário
+	synchronized void registrarReserva(Reserva reserva, int categoriaQuarto) {
+		ocuparNoites(reserva, categoriaQuarto, 1);
+		alterarContagem(reserva, 1);
+		if (reserva.getStatusReserva() == StatusReserva.CONFIRMADA) {
+			reservasConfirmadas++;
+		}
+	}
+
+	// A reserva sai das ativas e entra no histórico
+	synchronized void registrarCancelamento(Reserva reserva, int categoriaQuarto) {
+		ocuparNoites(reserva, categoriaQuarto, -1);
+		alterarContagem(reserva, -1);
+		if (reserva.getStatusReserva() == StatusReserva.CONFIRMADA) {
+			reservasConfirmadas--;
+		}
+		contarCancelamento(reserva, 1);
+	}
+
+	// Estadia concluída (chamado antes da troca de status): as noites e a contagem do quarto continuam,
+	// só deixa de contar como confirmada
+	synchronized void registrarConclusao(Reserva reserva) {
+		if (reserva.getStatusReserva() == StatusReserva.CONFIRMADA) {
+			reservasConfirmadas--;
+		}
+	}
+
+	// Reserva do histórico carregada na recuperação: estadia concluída conta como ocupação, o resto
+	// como cancelamento
+	synchronized void registrarHistorico(Reserva reserva, int categoriaQuarto) {
+		if (reserva.getStatusReserva() == StatusReserva.CONCLUIDA) {
+			ocuparNoites(reserva, categoriaQuarto, 1);
+			alterarContagem(reserva, 1);
+		} else {
+			contarCancelamento(reserva, 1);
+		}
+	}
+
+	// Na recuperação: reserva do histórico em memória que já está nos segmentos do arquivo
+	synchronized void removerHistorico(Reserva reserva, int categoriaQuarto) {
+		if (reserva.getStatusReserva() == StatusReserva.CONCLUIDA) {
+			ocuparNoites(reserva, categoriaQuarto, -1);
+			alterarContagem(reserva, -1);
+		} else {
+			contarCancelamento(reserva, -1);
+		}
+	}
+
+	private void contarCancelamento(Reserva reserva, int delta) {
+		if (reserva.getCheckOutDia() != Reserva.SEM_DATA) {
+			cancelamentosPorCheckOut.adicionar(reserva.getCheckOutDia(), delta);
+		}
+	}
+
+	// Cancelamentos guardados nos segmentos do ArquivoHistorico, contados na partida
+	synchronized void registrarHistoricoArquivado(int checkOutDia, long quantidade) {
+		cancelamentosPorCheckOut.adicionar(checkOutDia, quantidade);
+	}
+
+	// Estadias concluídas de um quarto guardadas em um segmento do ArquivoHistorico, somadas na partida
+	// a partir do cabeçalho do segmento, sem ler as reservas
+	synchronized void registrarOcupacaoArquivada(ArquivoHistorico.OcupacaoQuarto arquivada, int categoriaQuarto) {
+		OcupacaoPorDia porCategoria = ocupacaoPorCategoria.computeIfAbsent(categoriaQuarto, codigo -> new OcupacaoPorDia(1024));
+		OcupacaoPorDia porQuarto = ocupacaoPorQuarto.computeIfAbsent(arquivada.numeroQuarto(), numero -> new OcupacaoPorDia(64));
+		for (int i = 0; i < arquivada.dias().length; i++) {
+			int dia = arquivada.dias()[i];
+			int diferenca = arquivada.diferencas()[i];
+			ocupacao.adicionarDiferenca(dia, diferenca);
+			porCategoria.adicionarDiferenca(dia, diferenca);
+			porQuarto.adicionarDiferenca(dia, diferenca);
+			capacidade.ocuparDiferenca(categoriaQuarto, dia, diferenca);
+		}
+		for (int i = 0; i < arquivada.checkIns().length; i++) {
+			ranking.alterar(arquivada.numeroQuarto(), arquivada.checkIns()[i], arquivada.estadias()[i]);
+		}
+	}
+
+	private void ocuparNoites(Reserva reserva, int categoriaQuarto, long delta) {
+		long checkIn = reserva.getCheckInDia();
+		long checkOut = reserva.getCheckOutDia();
+		ocupacao.adicionar(checkIn, checkOut, delta);
+		ocupacaoPorCategoria.computeIfAbsent(categoriaQuarto, codigo -> new OcupacaoPorDia(1024))
+				.adicionar(checkIn, checkOut, delta);
+		ocupacaoPorQuarto.computeIfAbsent(reserva.getNumeroQuarto(), numero -> new OcupacaoPorDia(64))
+				.adicionar(checkIn, checkOut, delta);
+		capacidade.ocuparNoites(categoriaQuarto, reserva.getCheckInDia(), reserva.getCheckOutDia(), (int) delta);
+	}
+
+	private void alterarContagem(Reserva reserva, int delta) {
+		ranking.alterar(reserva.getNumeroQuarto(), reserva.getCheckInDia(), delta);
+	}
+
+	// Quarto-noites ocupadas nas noites [inicio, fim)
+	public synchronized long noitesOcupadas(LocalDate inicio, LocalDate fim) {
+		return ocupacao.noites(inicio.toEpochDay(), fim.toEpochDay());
+	}
+
+	// Nos quartos da categoria (ignorando maiúsculas)
+	public synchronized long noitesOcupadasPorCategoria(String categoria, LocalDate inicio, LocalDate fim) {
+		boolean[] coincide = CatalogoCategorias.coincidenciasIgnorandoCaixa(categoria);
+		long total = 0;
+		for (Map.Entry<Integer, OcupacaoPorDia> entry : ocupacaoPorCategoria.entrySet()) {
+			int codigo = entry.getKey();
+			if (codigo >= 0 && codigo < coincide.length && coincide[codigo]) {
+				total += entry.getValue().noites(inicio.toEpochDay(), fim.toEpochDay());
+			}
+		}
+		return total;
+	}
+
+	// Noites do quarto ocupadas em [inicio, fim)
+	public synchronized long noitesOcupadasDoQuarto(int numeroQuarto, LocalDate inicio, LocalDate fim) {
+		OcupacaoPorDia ocupacaoDoQuarto = ocupacaoPorQuarto.get(numeroQuarto);
+		return ocupacaoDoQuarto == null ? 0 : ocupacaoDoQuarto.noites(inicio.toEpochDay(), fim.toEpochDay());
+	}
+
+	// Cancelamentos com check-out em [inicio, fim]
+	public synchronized long cancelamentosComCheckOutEntre(LocalDate inicio, LocalDate fim) {
+		return cancelamentosPorCheckOut.soma(inicio.toEpochDay(), fim.toEpochDay());
+	}
+
+	public synchronized long getReservasConfirmadas() {
+		return reservasConfirmadas;
+	}
+
+	// Quarto com mais reservas não canceladas (menor número no empate) e a contagem, ou null se não houver reservas
+	public synchronized Map.Entry<Integer, Integer> quartoMaisReservado() {
+		List<Map.Entry<Integer, Integer>> primeiro = ranking.primeiros(1, true);
+		return primeiro.isEmpty() ? null : primeiro.get(0);
+	}
+
+	// Entre os quartos com ao menos uma reserva não cancelada
+	public synchronized Map.Entry<Integer, Integer> quartoMenosReservado() {
+		List<Map.Entry<Integer, Integer>> primeiro = ranking.primeiros(1, false);
+		return primeiro.isEmpty() ? null : primeiro.get(0);
+	}
+
+	// Os k quartos com mais reservas não canceladas, em ordem (menor número no empate)
+	public synchronized List<Map.Entry<Integer, Integer>> quartosMaisReservados(int k) {
+		return ranking.primeiros(k, true);
+	}
+
+	// Os k quartos com menos reservas, entre os que têm ao menos uma
+	public synchronized List<Map.Entry<Integer, Integer>> quartosMenosReservados(int k) {
+		return ranking.primeiros(k, false);
+	}
+
+	// Mesmo ranking contando só as reservas com check-in em [inicio, fim]
+	public synchronized List<Map.Entry<Integer, Integer>> quartosMaisReservados(int k, LocalDate inicio, LocalDate fim) {
+		return ranking.primeirosNoPeriodo(k, true, inicio.toEpochDay(), fim.toEpochDay());
+	}
+
+	public synchronized List<Map.Entry<Integer, Integer>> quartosMenosReservados(int k, LocalDate inicio, LocalDate fim) {
+		return ranking.primeirosNoPeriodo(k, false, inicio.toEpochDay(), fim.toEpochDay());
+	}
+
+	public synchronized int reservasDoQuarto(int numeroQuarto) {
+		return ranking.contagem(numeroQuarto);
+	}
+}
@@ -0,0 +1,258 @@
+package SistemaHotel;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ToIntFunction;
+
+// Quartos ocupados por noite, no hotel e por categoria, mantidos a cada alteração das reservas (via
+// MetricasReservas, sob o monitor dela), com limites de alerta e margens de overbooking por categoria.
+// Capacidade vendável da categoria = quartos + margem (margem negativa = quartos bloqueados); a do hotel
+// é a soma das categorias. Quando uma alteração faz uma noite cruzar o limite, para cima ou de volta para
+// baixo, um AlertaCapacidade entra na fila; o HotelReservaSistema entrega a fila aos ouvintes logo depois
+// de liberar as travas da operação. Sem ouvintes nada é enfileirado (a recuperação do journal não gera
+// alertas). Mudar limites, margens ou o inventário não dispara alertas: valem a partir da próxima alteração.
+// A capacidade vendável é imposta nos cadastros: uma noite cheia recusa novas reservas da categoria
+// (CAPACIDADE_ESGOTADA) e some da disponibilidade. Como toda reserva ocupa um quarto físico, só a margem
+// negativa restringe de fato; a positiva não cria vagas, entra apenas nas taxas e alertas.
+public final class MotorCapacidade {
+
+	private final Map<Integer, Ocupacao> porCategoria = new HashMap<>();
+	private final Ocupacao hotel = new Ocupacao(null);
+
+	private final List<OuvinteCapacidade> ouvintes = new CopyOnWriteArrayList<>();
+	private final ArrayDeque<AlertaCapacidade> pendentes = new ArrayDeque<>();
+	private final Object travaEntrega = new Object();
+
+	public MotorCapacidade() {
+	}
+
+	// Limite em percentual da capacidade vendável; categoria null = hotel inteiro
+	public synchronized void definirLimite(String categoria, double limitePercentual) {
+		if (!(limitePercentual > 0)) {
+			throw new IllegalArgumentException("Limite de ocupação inválido: " + limitePercentual);
+		}
+		ocupacao(categoria).limitePercentual = limitePercentual;
+	}
+
+	public synchronized void removerLimite(String categoria) {
+		ocupacao(categoria).limitePercentual = Double.NaN;
+	}
+
+	// Quartos além (ou, se negativo, aquém) do inventário da categoria que podem ser vendidos por noite
+	public synchronized void definirOverbooking(String categoria, int quartosExtras) {
+		if (categoria == null) {
+			throw new IllegalArgumentException("A margem de overbooking é definida por categoria.");
+		}
+		Ocupacao ocupacao = ocupacao(categoria);
+		hotel.margem += quartosExtras - ocupacao.margem;
+		ocupacao.margem = quartosExtras;
+	}
+
+	public synchronized int getOverbooking(String categoria) {
+		return categoria == null ? hotel.margem : existente(categoria).margem;
+	}
+
+	public synchronized int capacidadeVendavel(String categoria) {
+		return existente(categoria).capacidade();
+	}
+
+	public synchronized int ocupados(String categoria, LocalDate noite) {
+		return existente(categoria).noites.valor(noite.toEpochDay());
+	}
+
+	// Pode ser negativo quando uma margem reduzida deixa a noite acima da capacidade
+	public synchronized int disponiveisParaVenda(String categoria, LocalDate noite) {
+		Ocupacao ocupacao = existente(categoria);
+		return ocupacao.capacidade() - ocupacao.noites.valor(noite.toEpochDay());
+	}
+
+	public synchronized double taxaOcupacao(String categoria, LocalDate noite) {
+		Ocupacao ocupacao = existente(categoria);
+		return taxa(ocupacao.noites.valor(noite.toEpochDay()), ocupacao.capacidade());
+	}
+
+	// Taxa de cada noite de [inicio, fim), em ordem; categoria null = hotel inteiro
+	public synchronized double[] taxasOcupacao(String categoria, LocalDate inicio, LocalDate fim) {
+		Ocupacao ocupacao = existente(categoria);
+		int capacidade = ocupacao.capacidade();
+		double[] taxas = new double[(int) Math.max(0, fim.toEpochDay() - inicio.toEpochDay())];
+		for (int i = 0; i < taxas.length; i++) {
+			taxas[i] = taxa(ocupacao.noites.valor(inicio.toEpochDay() + i), capacidade);
+		}
+		return taxas;
+	}
+
+	public void adicionarOuvinte(OuvinteCapacidade ouvinte) {
+		ouvintes.add(ouvinte);
+	}
+
+	public void removerOuvinte(OuvinteCapacidade ouvinte) {
+		ouvintes.remove(ouvinte);
+	}
+
+	// Chamado ao criar o quarto, sob a trava dele
+	synchronized void adicionarQuarto(int codigoCategoria) {
+		porCategoria.computeIfAbsent(codigoCategoria, Ocupacao::new).quartos++;
+		hotel.quartos++;
+	}
+
+	// Noites [checkIn, checkOut) de um quarto da categoria recebem 'delta'; O(log D), mais O(noites) só
+	// quando há ouvintes e limite definido (estadias têm no máximo HotelReservaSistema.MAXIMO_NOITES)
+	synchronized void ocuparNoites(int codigoCategoria, int checkIn, int checkOut, int delta) {
+		if (checkIn == Reserva.SEM_DATA || checkOut <= checkIn) {
+			return;
+		}
+		Ocupacao categoria = porCategoria.computeIfAbsent(codigoCategoria, Ocupacao::new);
+		boolean alertar = !ouvintes.isEmpty();
+		categoria.ocupar(checkIn, checkOut, delta, alertar);
+		hotel.ocupar(checkIn, checkOut, delta, alertar);
+	}
+
+	// Falso se alguma noite de [checkIn, checkOut) já ocupa toda a capacidade vendável da categoria
+	synchronized boolean temCapacidade(int codigoCategoria, int checkIn, int checkOut) {
+		Ocupacao ocupacao = porCategoria.get(codigoCategoria);
+		if (ocupacao == null || ocupacao.margem >= 0) {
+			return true; // Os próprios quartos já limitam a ocupação
+		}
+		for (int dia = checkIn; dia < checkOut; dia++) {
+			if (ocupacao.noites.valor(dia) >= ocupacao.capacidade()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Sob travaIndices, antes de registrar o cadastro: a primeira reserva que, somada às já ocupadas e às
+	// anteriores da lista, passaria da capacidade vendável em alguma noite; null se todas cabem
+	synchronized Reserva primeiraSemCapacidade(List<Reserva> reservas, ToIntFunction<Reserva> categoriaDe) {
+		Map<Integer, ContagemPorNoite> doLote = null;
+		for (Reserva reserva : reservas) {
+			int codigoCategoria = categoriaDe.applyAsInt(reserva);
+			Ocupacao ocupacao = porCategoria.get(codigoCategoria);
+			if (ocupacao == null || ocupacao.margem >= 0) {
+				continue;
+			}
+			if (doLote == null) {
+				doLote = new HashMap<>();
+			}
+			ContagemPorNoite pendentes = doLote.computeIfAbsent(codigoCategoria, codigo -> new ContagemPorNoite());
+			int capacidade = ocupacao.capacidade();
+			for (int dia = reserva.getCheckInDia(); dia < reserva.getCheckOutDia(); dia++) {
+				if (ocupacao.noites.valor(dia) + pendentes.valor(dia) >= capacidade) {
+					return reserva;
+				}
+			}
+			pendentes.adicionar(reserva.getCheckInDia(), reserva.getCheckOutDia(), 1);
+		}
+		return null;
+	}
+
+	// Na partida, sem ouvintes: diferença de ocupação das estadias arquivadas (ArquivoHistorico)
+	synchronized void ocuparDiferenca(int codigoCategoria, int dia, int delta) {
+		porCategoria.computeIfAbsent(codigoCategoria, Ocupacao::new).noites.adicionarDiferenca(dia, delta);
+		hotel.noites.adicionarDiferenca(dia, delta);
+	}
+
+	// Entrega os alertas pendentes, fora das travas do sistema. A trava de entrega mantém a ordem
+	// entre threads; alertas enfileirados durante a entrega saem na mesma chamada.
+	void entregarAlertas() {
+		synchronized (travaEntrega) {
+			AlertaCapacidade alerta;
+			while ((alerta = proximoPendente()) != null) {
+				for (OuvinteCapacidade ouvinte : ouvintes) {
+					ouvinte.alertar(alerta);
+				}
+			}
+		}
+	}
+
+	private synchronized AlertaCapacidade proximoPendente() {
+		return pendentes.poll();
+	}
+
+	static double taxa(int ocupados, int capacidade) {
+		if (capacidade <= 0) {
+			return ocupados > 0 ? Double.POSITIVE_INFINITY : 0;
+		}
+		return ocupados * 100.0 / capacidade;
+	}
+
+	// Para configuração: a categoria precisa ser de algum quarto
+	private Ocupacao ocupacao(String categoria) {
+		if (categoria == null) {
+			return hotel;
+		}
+		int codigo = CatalogoCategorias.buscar(categoria);
+		if (codigo == CatalogoCategorias.NAO_CATALOGADA) {
+			throw new IllegalArgumentException("Categoria sem quartos: " + categoria);
+		}
+		return porCategoria.computeIfAbsent(codigo, Ocupacao::new);
+	}
+
+	// Consulta sem criar a categoria
+	private Ocupacao existente(String categoria) {
+		if (categoria == null) {
+			return hotel;
+		}
+		Ocupacao ocupacao = porCategoria.get(CatalogoCategorias.buscar(categoria));
+		return ocupacao == null ? new Ocupacao(null) : ocupacao;
+	}
+
+	private final class Ocupacao {
+		private final String categoria;
+		private final ContagemPorNoite noites = new ContagemPorNoite();
+		private int quartos;
+		private int margem;
+		private double limitePercentual = Double.NaN;
+
+		Ocupacao(Integer codigoCategoria) {
+			categoria = codigoCategoria == null ? null : CatalogoCategorias.nome(codigoCategoria);
+		}
+
+		int capacidade() {
+			return Math.max(0, quartos + margem);
+		}
+
+		void ocupar(int checkIn, int checkOut, int delta, boolean alertar) {
+			noites.adicionar(checkIn, checkOut, delta);
+			if (!alertar || Double.isNaN(limitePercentual)) {
+				return;
+			}
+			int capacidade = capacidade();
+			for (int dia = checkIn; dia < checkOut; dia++) {
+				int depois = noites.valor(dia);
+				boolean estavaAcima = taxa(depois - delta, capacidade) >= limitePercentual;
+				boolean ficouAcima = taxa(depois, capacidade) >= limitePercentual;
+				if (estavaAcima != ficouAcima) {
+					pendentes.add(new AlertaCapacidade(categoria, LocalDate.ofEpochDay(dia), depois, capacidade,
+							limitePercentual, ficouAcima));
+				}
+			}
+		}
+	}
+
+	// Contagem por epoch day: uma FenwickDias sobre as diferenças entre noites consecutivas, então
+	// somar a um intervalo de noites e ler uma noite custam O(log D). A faixa de dias tem o teto da FenwickDias.
+	private static final class ContagemPorNoite {
+		private final FenwickDias diferencas = new FenwickDias();
+
+		// Noites [inicio, fim) recebem 'delta'
+		void adicionar(long inicio, long fim, int delta) {
+			diferencas.adicionar(inicio, delta);
+			diferencas.adicionar(fim, -delta);
+		}
+
+		// Todas as noites a partir de 'dia' recebem 'delta'
+		void adicionarDiferenca(long dia, int delta) {
+			diferencas.adicionar(dia, delta);
+		}
+
+		int valor(long dia) {
+			return (int) diferencas.somaAte(dia);
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package SistemaHotel;
+
+// Quarto-noites ocupadas por epoch day: somar 1 a cada noite de uma estadia e consultar a soma
+// de qualquer faixa de noites, ambos em O(log D). Duas árvores de Fenwick (atualização e soma de
+// intervalo): ocupação acumulada até x = somaInicio(x) * x - somaAjuste(x). Não é thread-safe.
+final class OcupacaoPorDia {
+
+	private final FenwickDias somaInicio;
+	private final FenwickDias somaAjuste;
+
+	OcupacaoPorDia(int capacidadeInicial) {
+		somaInicio = new FenwickDias(capacidadeInicial);
+		somaAjuste = new FenwickDias(capacidadeInicial);
+	}
+
+	// Noites [checkIn, checkOut) recebem 'delta'
+	void adicionar(long checkIn, long checkOut, long delta) {
+		adicionarDiferenca(checkIn, delta);
+		adicionarDiferenca(checkOut, -delta);
+	}
+
+	// Todas as noites a partir de 'dia' recebem 'delta'; estadias são um par de diferenças
+	void adicionarDiferenca(long dia, long delta) {
+		somaInicio.adicionar(dia, delta);
+		somaAjuste.adicionar(dia, delta * (dia - 1));
+	}
+
+	// Soma das noites [inicio, fim)
+	long noites(long inicio, long fim) {
+		return fim <= inicio ? 0 : acumuladoAte(fim - 1) - acumuladoAte(inicio - 1);
+	}
+
+	private long acumuladoAte(long dia) {
+		return somaInicio.somaAte(dia) * dia - somaAjuste.somaAte(dia);
+	}
+}
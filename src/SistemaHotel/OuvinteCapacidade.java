@@ -0,0 +1,9 @@
+package SistemaHotel;
+
+// Recebe os alertas do MotorCapacidade, fora das travas do sistema e na ordem em que ocorreram.
+// Roda na thread da operação que cruzou o limite: deve ser rápido ou repassar o trabalho.
+@FunctionalInterface
+public interface OuvinteCapacidade {
+
+	void alertar(AlertaCapacidade alerta);
+}
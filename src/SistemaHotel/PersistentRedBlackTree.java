@@ -0,0 +1,594 @@
+package SistemaHotel;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Árvore rubro-negra (left-leaning) persistente: insert e delete devolvem uma nova versão
+// copiando apenas o caminho alterado, O(log n). Versões publicadas nunca são modificadas,
+// então podem ser lidas por qualquer thread sem trava enquanto novas versões são criadas.
+public final class PersistentRedBlackTree<T extends Reserva> implements Iterable<T> {
+
+	private static final boolean RED = true;
+	private static final boolean BLACK = false;
+
+	private static final class Node<T> {
+		T value;
+		boolean color;
+		Node<T> left, right;
+		int maxCheckOut;   // Maior check-out (epoch day) da subárvore
+		final Object edit;     // Operação que criou o nó; só ela pode modificá-lo
+
+		Node(T value, boolean color, Node<T> left, Node<T> right, int maxCheckOut, Object edit) {
+			this.value = value;
+			this.color = color;
+			this.left = left;
+			this.right = right;
+			this.maxCheckOut = maxCheckOut;
+			this.edit = edit;
+		}
+	}
+
+	private final Node<T> root;
+	private final int size;
+	private final Comparator<? super T> comparator;
+
+	public PersistentRedBlackTree() {
+		this(Reserva::compareTo);
+	}
+
+	public PersistentRedBlackTree(Comparator<? super T> comparator) {
+		this(null, 0, comparator);
+	}
+
+	private PersistentRedBlackTree(Node<T> root, int size, Comparator<? super T> comparator) {
+		this.root = root;
+		this.size = size;
+		this.comparator = comparator;
+	}
+
+	// Monta uma versão a partir de valores já ordenados pelo comparador, em O(n) e sem rotações.
+	// Segue a correspondência com árvores 2-3: cada subárvore recebe a altura negra mínima que a
+	// comporta e vira um nó 2 (preto) ou, quando não cabe, um nó 3 (preto com filho esquerdo vermelho).
+	public static <T extends Reserva> PersistentRedBlackTree<T> fromSorted(List<? extends T> sorted,
+			Comparator<? super T> comparator) {
+		for (int i = 1; i < sorted.size(); i++) {
+			if (comparator.compare(sorted.get(i - 1), sorted.get(i)) > 0) {
+				throw new IllegalArgumentException("Valores fora de ordem na posição " + i + ".");
+			}
+		}
+		int n = sorted.size();
+		int blackHeight = 31 - Integer.numberOfLeadingZeros(n + 1); // floor(log2(n + 1))
+		Node<T> root = build(sorted, 0, n, blackHeight, new Object());
+		return new PersistentRedBlackTree<>(root, n, comparator);
+	}
+
+	public static <T extends Reserva> PersistentRedBlackTree<T> fromSorted(List<? extends T> sorted) {
+		return fromSorted(sorted, Reserva::compareTo);
+	}
+
+	// Importação sem ordem: ordenação paralela seguida da montagem em O(n)
+	public static <T extends Reserva> PersistentRedBlackTree<T> fromUnsorted(Collection<? extends T> values,
+			Comparator<? super T> comparator) {
+		@SuppressWarnings("unchecked")
+		T[] array = (T[]) values.toArray(new Reserva[0]);
+		Arrays.parallelSort(array, comparator);
+		return fromSorted(Arrays.asList(array), comparator);
+	}
+
+	// Faixa [from, to) com altura negra exata; cabe se 2^h - 1 <= tamanho <= 3^h - 1
+	private static <T extends Reserva> Node<T> build(List<? extends T> sorted, int from, int to, int blackHeight, Object edit) {
+		int count = to - from;
+		if (blackHeight == 0) {
+			return null;
+		}
+		long childCapacity = maxSize(blackHeight - 1);
+		if (count - 1 <= 2 * childCapacity) {
+			int middle = from + (count - 1) / 2;
+			return black(sorted.get(middle), build(sorted, from, middle, blackHeight - 1, edit),
+					build(sorted, middle + 1, to, blackHeight - 1, edit), edit);
+		}
+		// Nó 3: [a] vermelho [b] preto [c], com as três subárvores do mesmo tamanho, +-1
+		int third = (count - 2) / 3;
+		int red = from + third + (count - 2) % 3 / 2;
+		int blackPosition = red + 1 + third + ((count - 2) % 3 == 2 ? 1 : 0);
+		Node<T> redNode = new Node<>(sorted.get(red), RED,
+				build(sorted, from, red, blackHeight - 1, edit),
+				build(sorted, red + 1, blackPosition, blackHeight - 1, edit), 0, edit);
+		return black(sorted.get(blackPosition), withMax(redNode),
+				build(sorted, blackPosition + 1, to, blackHeight - 1, edit), edit);
+	}
+
+	private static <T extends Reserva> Node<T> black(T value, Node<T> left, Node<T> right, Object edit) {
+		return withMax(new Node<>(value, BLACK, left, right, 0, edit));
+	}
+
+	private static <T extends Reserva> Node<T> withMax(Node<T> node) {
+		int max = node.value.getCheckOutDia();
+		if (node.left != null && node.left.maxCheckOut > max) {
+			max = node.left.maxCheckOut;
+		}
+		if (node.right != null && node.right.maxCheckOut > max) {
+			max = node.right.maxCheckOut;
+		}
+		node.maxCheckOut = max;
+		return node;
+	}
+
+	// Maior quantidade de valores com altura negra h (só nós 3): 3^h - 1
+	private static long maxSize(int blackHeight) {
+		long size = 1;
+		for (int i = 0; i < blackHeight; i++) {
+			size *= 3;
+		}
+		return size - 1;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	// Valores equivalentes ficam após os já existentes
+	public PersistentRedBlackTree<T> insert(T value) {
+		Object edit = new Object();
+		Node<T> newRoot = insertNode(root, value, edit);
+		newRoot.color = BLACK;
+		return new PersistentRedBlackTree<>(newRoot, size + 1, comparator);
+	}
+
+	// Insere vários valores gerando uma única versão; os nós criados pelo lote são alterados
+	// no lugar nas inserções seguintes, sem cópias intermediárias
+	public PersistentRedBlackTree<T> insertAll(Collection<? extends T> values) {
+		if (values.isEmpty()) {
+			return this;
+		}
+		Object edit = new Object();
+		Node<T> newRoot = root;
+		for (T value : values) {
+			newRoot = insertNode(newRoot, value, edit);
+			newRoot.color = BLACK;
+		}
+		return new PersistentRedBlackTree<>(newRoot, size + values.size(), comparator);
+	}
+
+	// Remove um valor igual segundo o comparador; devolve a mesma versão se não houver
+	public PersistentRedBlackTree<T> delete(T value) {
+		if (!contains(value)) {
+			return this;
+		}
+		Object edit = new Object();
+		Node<T> newRoot = root;
+		if (!isRed(newRoot.left) && !isRed(newRoot.right)) {
+			newRoot = editable(newRoot, edit);
+			newRoot.color = RED;
+		}
+		newRoot = deleteNode(newRoot, value, edit);
+		if (newRoot != null) {
+			newRoot.color = BLACK;
+		}
+		return new PersistentRedBlackTree<>(newRoot, size - 1, comparator);
+	}
+
+	// Remove vários valores gerando uma única versão, como insertAll; valores ausentes são ignorados
+	public PersistentRedBlackTree<T> deleteAll(Collection<? extends T> values) {
+		Object edit = new Object();
+		Node<T> newRoot = root;
+		int newSize = size;
+		for (T value : values) {
+			if (!contains(newRoot, value)) {
+				continue;
+			}
+			if (!isRed(newRoot.left) && !isRed(newRoot.right)) {
+				newRoot = editable(newRoot, edit);
+				newRoot.color = RED;
+			}
+			newRoot = deleteNode(newRoot, value, edit);
+			if (newRoot != null) {
+				newRoot.color = BLACK;
+			}
+			newSize--;
+		}
+		return newSize == size ? this : new PersistentRedBlackTree<>(newRoot, newSize, comparator);
+	}
+
+	public boolean contains(T value) {
+		return contains(root, value);
+	}
+
+	private boolean contains(Node<T> from, T value) {
+		Node<T> current = from;
+		while (current != null) {
+			int cmp = comparator.compare(value, current.value);
+			if (cmp == 0) {
+				return true;
+			}
+			current = cmp < 0 ? current.left : current.right;
+		}
+		return false;
+	}
+
+	private Node<T> insertNode(Node<T> node, T value, Object edit) {
+		if (node == null) {
+			return new Node<>(value, RED, null, null, value.getCheckOutDia(), edit);
+		}
+		node = editable(node, edit);
+		if (comparator.compare(value, node.value) < 0) {
+			node.left = insertNode(node.left, value, edit);
+		} else {
+			node.right = insertNode(node.right, value, edit);
+		}
+		return balance(node, edit);
+	}
+
+	private Node<T> deleteNode(Node<T> node, T value, Object edit) {
+		node = editable(node, edit);
+		if (comparator.compare(value, node.value) < 0) {
+			if (!isRed(node.left) && !isRed(node.left.left)) {
+				node = moveRedLeft(node, edit);
+			}
+			node.left = deleteNode(node.left, value, edit);
+		} else {
+			if (isRed(node.left)) {
+				node = rotateRight(node, edit);
+			}
+			if (comparator.compare(value, node.value) == 0 && node.right == null) {
+				return null;
+			}
+			if (!isRed(node.right) && !isRed(node.right.left)) {
+				node = moveRedRight(node, edit);
+			}
+			if (comparator.compare(value, node.value) == 0) {
+				node.value = minimum(node.right).value;
+				node.right = deleteMin(node.right, edit);
+			} else {
+				node.right = deleteNode(node.right, value, edit);
+			}
+		}
+		return balance(node, edit);
+	}
+
+	private Node<T> deleteMin(Node<T> node, Object edit) {
+		if (node.left == null) {
+			return null;
+		}
+		node = editable(node, edit);
+		if (!isRed(node.left) && !isRed(node.left.left)) {
+			node = moveRedLeft(node, edit);
+		}
+		node.left = deleteMin(node.left, edit);
+		return balance(node, edit);
+	}
+
+	private Node<T> editable(Node<T> node, Object edit) {
+		if (node.edit == edit) {
+			return node;
+		}
+		return new Node<>(node.value, node.color, node.left, node.right, node.maxCheckOut, edit);
+	}
+
+	private static boolean isRed(Node<?> node) {
+		return node != null && node.color == RED;
+	}
+
+	// Os métodos abaixo recebem nós já editáveis e devolvem a nova raiz da subárvore
+	private Node<T> rotateLeft(Node<T> node, Object edit) {
+		Node<T> newNode = editable(node.right, edit);
+		node.right = newNode.left;
+		newNode.left = node;
+		newNode.color = node.color;
+		node.color = RED;
+		updateMax(node);
+		updateMax(newNode);
+		return newNode;
+	}
+
+	private Node<T> rotateRight(Node<T> node, Object edit) {
+		Node<T> newNode = editable(node.left, edit);
+		node.left = newNode.right;
+		newNode.right = node;
+		newNode.color = node.color;
+		node.color = RED;
+		updateMax(node);
+		updateMax(newNode);
+		return newNode;
+	}
+
+	private void flipColors(Node<T> node, Object edit) {
+		node.left = editable(node.left, edit);
+		node.right = editable(node.right, edit);
+		node.color = !node.color;
+		node.left.color = !node.left.color;
+		node.right.color = !node.right.color;
+	}
+
+	private Node<T> moveRedLeft(Node<T> node, Object edit) {
+		flipColors(node, edit);
+		if (isRed(node.right.left)) {
+			node.right = rotateRight(node.right, edit);
+			node = rotateLeft(node, edit);
+			flipColors(node, edit);
+		}
+		return node;
+	}
+
+	private Node<T> moveRedRight(Node<T> node, Object edit) {
+		flipColors(node, edit);
+		if (isRed(node.left.left)) {
+			node = rotateRight(node, edit);
+			flipColors(node, edit);
+		}
+		return node;
+	}
+
+	private Node<T> balance(Node<T> node, Object edit) {
+		if (isRed(node.right) && !isRed(node.left)) {
+			node = rotateLeft(node, edit);
+		}
+		if (isRed(node.left) && isRed(node.left.left)) {
+			node = rotateRight(node, edit);
+		}
+		if (isRed(node.left) && isRed(node.right)) {
+			flipColors(node, edit);
+		}
+		updateMax(node);
+		return node;
+	}
+
+	private void updateMax(Node<T> node) {
+		int max = node.value.getCheckOutDia();
+		if (node.left != null && node.left.maxCheckOut > max) {
+			max = node.left.maxCheckOut;
+		}
+		if (node.right != null && node.right.maxCheckOut > max) {
+			max = node.right.maxCheckOut;
+		}
+		node.maxCheckOut = max;
+	}
+
+	private static <T> Node<T> minimum(Node<T> node) {
+		while (node.left != null) {
+			node = node.left;
+		}
+		return node;
+	}
+
+	public List<T> inOrderTraversal() {
+		List<T> result = new ArrayList<>(size);
+		for (T value : this) {
+			result.add(value);
+		}
+		return result;
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		TreeIterator iterator = new TreeIterator(NO_END, NO_FILTER);
+		iterator.pushLeft(root);
+		return iterator;
+	}
+
+	// Divisível nas raízes das subárvores, para streams paralelos
+	@Override
+	public Spliterator<T> spliterator() {
+		return new TreeSpliterator(root, NO_END, NO_FILTER, size);
+	}
+
+	public Stream<T> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+	public Stream<T> parallelStream() {
+		return StreamSupport.stream(spliterator(), true);
+	}
+
+	// Os mesmos valores de overlapping(start, end), em ordem; com 'parallel', as subárvores
+	// são repartidas entre as threads do ForkJoinPool em que o stream rodar
+	public Stream<T> overlappingStream(LocalDate start, LocalDate end, boolean parallel) {
+		return StreamSupport.stream(new TreeSpliterator(root, end.toEpochDay(), start.toEpochDay(), size), parallel);
+	}
+
+	// Valores com checkIn em [fromCheckIn, toCheckIn); null deixa o limite aberto.
+	// Pressupõe comparador com checkIn como chave primária.
+	public Iterable<T> subRange(LocalDate fromCheckIn, LocalDate toCheckIn) {
+		long to = toCheckIn == null ? NO_END : toCheckIn.toEpochDay();
+		return () -> {
+			TreeIterator iterator = new TreeIterator(to, NO_FILTER);
+			if (fromCheckIn == null) {
+				iterator.pushLeft(root);
+			} else {
+				iterator.seek(root, fromCheckIn.toEpochDay());
+			}
+			return iterator;
+		};
+	}
+
+	// Valores cujo intervalo [checkIn, checkOut) sobrepõe [start, end), em ordem;
+	// subárvores com maxCheckOut <= start são puladas
+	public Iterable<T> overlapping(LocalDate start, LocalDate end) {
+		long from = start.toEpochDay();
+		long to = end.toEpochDay();
+		return () -> {
+			TreeIterator iterator = new TreeIterator(to, from);
+			iterator.pushLeft(root);
+			return iterator;
+		};
+	}
+
+	// Limites em epoch day; long para que os valores "sem limite" fiquem fora do intervalo de int
+	private static final long NO_END = Long.MAX_VALUE;
+	private static final long NO_FILTER = Long.MIN_VALUE;
+
+	// Partes pendentes de um TreeSpliterator: a subárvore inteira do nó, ou só o valor dele
+	private record Part<T>(Node<T> node, boolean whole) {
+	}
+
+	// Percorre uma fila ordenada de partes. trySplit devolve o que vem antes da última subárvore
+	// inteira da fila; se ela for a primeira, é aberta antes em [esquerda][valor][direita], então
+	// cada divisão corta na raiz de uma subárvore. Versões são imutáveis: as partes podem ser percorridas
+	// em threads diferentes sem coordenação. Mesmos filtros do TreeIterator.
+	private final class TreeSpliterator implements Spliterator<T> {
+		private final ArrayDeque<Part<T>> parts = new ArrayDeque<>();
+		private final long endCheckIn;
+		private final long startCheckOut;
+		private long estimate; // Limite superior; exato só antes de dividir e sem filtros
+
+		TreeSpliterator(Node<T> node, long endCheckIn, long startCheckOut, long estimate) {
+			this.endCheckIn = endCheckIn;
+			this.startCheckOut = startCheckOut;
+			this.estimate = estimate;
+			if (node != null) {
+				parts.add(new Part<>(node, true));
+			}
+		}
+
+		// Troca a subárvore por [esquerda][valor][direita] na frente da fila, sem o que os filtros excluem
+		private void open(Node<T> node) {
+			if (node.maxCheckOut <= startCheckOut) {
+				return;
+			}
+			if (node.value.getCheckInDia() < endCheckIn) {
+				if (node.right != null) {
+					parts.addFirst(new Part<>(node.right, true));
+				}
+				if (node.value.getCheckOutDia() > startCheckOut) {
+					parts.addFirst(new Part<>(node, false));
+				}
+			}
+			if (node.left != null) {
+				parts.addFirst(new Part<>(node.left, true));
+			}
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			while (!parts.isEmpty()) {
+				Part<T> part = parts.pollFirst();
+				if (!part.whole()) {
+					action.accept(part.node().value);
+					return true;
+				}
+				open(part.node());
+			}
+			return false;
+		}
+
+		@Override
+		public Spliterator<T> trySplit() {
+			int split = lastWhole();
+			while (split == 0) {
+				open(parts.pollFirst().node());
+				split = lastWhole();
+			}
+			if (split < 0) {
+				return null;
+			}
+			TreeSpliterator prefix = new TreeSpliterator(null, endCheckIn, startCheckOut, estimate / 2);
+			for (int i = 0; i < split; i++) {
+				prefix.parts.add(parts.pollFirst());
+			}
+			estimate -= prefix.estimate;
+			return prefix;
+		}
+
+		// Posição da última subárvore inteira na fila, ou -1
+		private int lastWhole() {
+			int index = parts.size() - 1;
+			for (Iterator<Part<T>> iterator = parts.descendingIterator(); iterator.hasNext(); index--) {
+				if (iterator.next().whole()) {
+					return index;
+				}
+			}
+			return -1;
+		}
+
+		@Override
+		public long estimateSize() {
+			return estimate;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+		}
+	}
+
+	// Sem ponteiros de pai: a pilha guarda o caminho, com profundidade O(log n)
+	private class TreeIterator implements Iterator<T> {
+		private final ArrayDeque<Node<T>> stack = new ArrayDeque<>();
+		private final long endCheckIn;    // Exclusivo; NO_END = sem limite
+		private final long startCheckOut; // Filtro checkOut > startCheckOut; NO_FILTER = sem filtro
+		private Node<T> next;
+		private boolean ready;
+
+		TreeIterator(long endCheckIn, long startCheckOut) {
+			this.endCheckIn = endCheckIn;
+			this.startCheckOut = startCheckOut;
+		}
+
+		void pushLeft(Node<T> node) {
+			while (node != null && node.maxCheckOut > startCheckOut) {
+				stack.push(node);
+				node = node.left;
+			}
+		}
+
+		void seek(Node<T> node, long fromCheckIn) {
+			while (node != null) {
+				if (node.value.getCheckInDia() < fromCheckIn) {
+					node = node.right;
+				} else {
+					stack.push(node);
+					node = node.left;
+				}
+			}
+		}
+
+		private void advance() {
+			next = null;
+			while (!stack.isEmpty()) {
+				Node<T> node = stack.pop();
+				if (node.value.getCheckInDia() >= endCheckIn) {
+					stack.clear();
+					break;
+				}
+				pushLeft(node.right);
+				if (node.value.getCheckOutDia() > startCheckOut) {
+					next = node;
+					break;
+				}
+			}
+			ready = true;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (!ready) {
+				advance();
+			}
+			return next != null;
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			ready = false;
+			return next.value;
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package SistemaHotel;
+
+// Quarto do inventário; número e categoria são fixos, o status acompanha as reservas
+public final class Quarto {
+
+	private final int numeroQuarto;
+	private final int categoriaQuarto; // Código em CatalogoCategorias
+	private volatile StatusReserva status = StatusReserva.DISPONIVEL;
+
+	// Criado só pelo HotelReservaSistema: é o único caminho que registra categorias no catálogo
+	Quarto(int numeroQuarto, String categoriaQuarto) {
+		this.numeroQuarto = numeroQuarto;
+		this.categoriaQuarto = CatalogoCategorias.registrar(categoriaQuarto);
+	}
+
+	public int getNumeroQuarto() {
+		return numeroQuarto;
+	}
+
+	public String getCategoriaQuarto() {
+		return CatalogoCategorias.nome(categoriaQuarto);
+	}
+
+	int getCodigoCategoria() {
+		return categoriaQuarto;
+	}
+
+	public StatusReserva getStatus() {
+		return status;
+	}
+
+	void setStatus(StatusReserva status) {
+		this.status = status;
+	}
+
+	@Override
+	public String toString() {
+		return "Quarto [Número: " + numeroQuarto + ", Categoria: " + getCategoriaQuarto() + ", Status: " + status + "]";
+	}
+}
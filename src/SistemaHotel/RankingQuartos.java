@@ -0,0 +1,275 @@
+package SistemaHotel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// Ranking de quartos por número de reservas, mantido a cada alteração. Número do quarto -> posição
+// por endereçamento aberto e contagens em arrays de int, sem boxing; dois heaps indexados (maior e
+// menor contagem) dão o primeiro em O(1), cada alteração em O(log n) e os K primeiros em O(K log K).
+// Para rankings de um período, cada quarto guarda também as reservas por dia de check-in (FenwickDias).
+// Empates vão para o menor número de quarto; quartos com contagem 0 saem dos heaps. Não é thread-safe.
+final class RankingQuartos {
+
+	private static final int VAZIO = -1;
+
+	// Tabela de endereçamento aberto (sondagem linear): quarto e posição, VAZIO = livre
+	private int[] tabelaQuartos = new int[16];
+	private int[] tabelaPosicoes = novaTabela(16);
+
+	// Por posição; posições nunca são liberadas, quartos não saem do inventário
+	private int quantidade;
+	private int[] quartos = new int[8];
+	private int[] contagens = new int[8];
+	private FenwickDias[] porCheckIn = new FenwickDias[8];
+	private int[] noHeapMaior = new int[8];
+	private int[] noHeapMenor = new int[8];
+
+	private final Heap maior = new Heap(true);
+	private final Heap menor = new Heap(false);
+
+	private static int[] novaTabela(int tamanho) {
+		int[] tabela = new int[tamanho];
+		Arrays.fill(tabela, VAZIO);
+		return tabela;
+	}
+
+	void alterar(int numeroQuarto, int checkInDia, int delta) {
+		int posicao = posicao(numeroQuarto);
+		int anterior = contagens[posicao];
+		contagens[posicao] = anterior + delta;
+		if (checkInDia != Reserva.SEM_DATA) {
+			porCheckIn[posicao].adicionar(checkInDia, delta);
+		}
+		if (anterior <= 0 && contagens[posicao] > 0) {
+			maior.inserir(posicao);
+			menor.inserir(posicao);
+		} else if (contagens[posicao] <= 0 && anterior > 0) {
+			maior.remover(posicao);
+			menor.remover(posicao);
+		} else if (contagens[posicao] > 0) {
+			maior.ajustar(posicao);
+			menor.ajustar(posicao);
+		}
+	}
+
+	int contagem(int numeroQuarto) {
+		int posicao = buscar(numeroQuarto);
+		return posicao == VAZIO ? 0 : contagens[posicao];
+	}
+
+	// Até k quartos com mais (ou menos) reservas, do primeiro ao k-ésimo
+	List<Map.Entry<Integer, Integer>> primeiros(int k, boolean maisReservados) {
+		Heap heap = maisReservados ? maior : menor;
+		List<Map.Entry<Integer, Integer>> ranking = new ArrayList<>(Math.min(k, heap.tamanho));
+		if (heap.tamanho == 0 || k <= 0) {
+			return ranking;
+		}
+		// Busca pelos k melhores nós do heap: a fronteira só cresce pelos filhos dos já escolhidos
+		PriorityQueue<Integer> fronteira = new PriorityQueue<>(
+				(a, b) -> heap.antes(heap.posicoes[a], heap.posicoes[b]) ? -1 : 1);
+		fronteira.add(0);
+		while (ranking.size() < k && !fronteira.isEmpty()) {
+			int indice = fronteira.poll();
+			int posicao = heap.posicoes[indice];
+			ranking.add(Map.entry(quartos[posicao], contagens[posicao]));
+			for (int filho = 2 * indice + 1; filho <= 2 * indice + 2 && filho < heap.tamanho; filho++) {
+				fronteira.add(filho);
+			}
+		}
+		return ranking;
+	}
+
+	// Ranking pelas reservas com check-in em [de, ate] (epoch days); quartos sem reservas no período ficam
+	// de fora. Percorre os quartos com um heap limitado a k: O(quartos * (log D + log k)).
+	List<Map.Entry<Integer, Integer>> primeirosNoPeriodo(int k, boolean maisReservados, long de, long ate) {
+		if (k <= 0) {
+			return new ArrayList<>();
+		}
+		int[] noPeriodo = new int[quantidade];
+		// Heap com o pior dos k escolhidos no topo
+		PriorityQueue<Integer> escolhidos = new PriorityQueue<>(
+				(a, b) -> antes(noPeriodo[b], quartos[b], noPeriodo[a], quartos[a], maisReservados) ? -1 : 1);
+		for (int posicao = 0; posicao < quantidade; posicao++) {
+			noPeriodo[posicao] = (int) porCheckIn[posicao].soma(de, ate);
+			if (noPeriodo[posicao] <= 0) {
+				continue;
+			}
+			if (escolhidos.size() < k) {
+				escolhidos.add(posicao);
+			} else {
+				int pior = escolhidos.peek();
+				if (antes(noPeriodo[posicao], quartos[posicao], noPeriodo[pior], quartos[pior], maisReservados)) {
+					escolhidos.poll();
+					escolhidos.add(posicao);
+				}
+			}
+		}
+		List<Map.Entry<Integer, Integer>> ranking = new ArrayList<>(escolhidos.size());
+		while (!escolhidos.isEmpty()) {
+			int posicao = escolhidos.poll();
+			ranking.add(Map.entry(quartos[posicao], noPeriodo[posicao]));
+		}
+		Collections.reverse(ranking);
+		return ranking;
+	}
+
+	// (contagemA, quartoA) vem antes de (contagemB, quartoB) no ranking
+	private static boolean antes(int contagemA, int quartoA, int contagemB, int quartoB, boolean maisReservados) {
+		if (contagemA != contagemB) {
+			return maisReservados ? contagemA > contagemB : contagemA < contagemB;
+		}
+		return quartoA < quartoB;
+	}
+
+	private int buscar(int numeroQuarto) {
+		int mascara = tabelaQuartos.length - 1;
+		for (int i = espalhar(numeroQuarto) & mascara; tabelaPosicoes[i] != VAZIO; i = (i + 1) & mascara) {
+			if (tabelaQuartos[i] == numeroQuarto) {
+				return tabelaPosicoes[i];
+			}
+		}
+		return VAZIO;
+	}
+
+	// Posição do quarto, criada na primeira alteração
+	private int posicao(int numeroQuarto) {
+		int posicao = buscar(numeroQuarto);
+		if (posicao != VAZIO) {
+			return posicao;
+		}
+		if (quantidade == quartos.length) {
+			int capacidade = quartos.length * 2;
+			quartos = Arrays.copyOf(quartos, capacidade);
+			contagens = Arrays.copyOf(contagens, capacidade);
+			porCheckIn = Arrays.copyOf(porCheckIn, capacidade);
+			noHeapMaior = Arrays.copyOf(noHeapMaior, capacidade);
+			noHeapMenor = Arrays.copyOf(noHeapMenor, capacidade);
+		}
+		posicao = quantidade++;
+		quartos[posicao] = numeroQuarto;
+		porCheckIn[posicao] = new FenwickDias(64);
+		noHeapMaior[posicao] = VAZIO;
+		noHeapMenor[posicao] = VAZIO;
+		// Fator de carga até 1/2
+		if (2 * quantidade > tabelaQuartos.length) {
+			int[] quartosAntigos = tabelaQuartos;
+			int[] posicoesAntigas = tabelaPosicoes;
+			tabelaQuartos = new int[quartosAntigos.length * 2];
+			tabelaPosicoes = novaTabela(quartosAntigos.length * 2);
+			for (int i = 0; i < quartosAntigos.length; i++) {
+				if (posicoesAntigas[i] != VAZIO) {
+					colocar(quartosAntigos[i], posicoesAntigas[i]);
+				}
+			}
+		}
+		colocar(numeroQuarto, posicao);
+		return posicao;
+	}
+
+	private void colocar(int numeroQuarto, int posicao) {
+		int mascara = tabelaQuartos.length - 1;
+		int i = espalhar(numeroQuarto) & mascara;
+		while (tabelaPosicoes[i] != VAZIO) {
+			i = (i + 1) & mascara;
+		}
+		tabelaQuartos[i] = numeroQuarto;
+		tabelaPosicoes[i] = posicao;
+	}
+
+	// Números de quarto costumam ser sequenciais; o espalhamento evita agrupamentos na sondagem
+	private static int espalhar(int numeroQuarto) {
+		int h = numeroQuarto * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	// Heap binário de posições; cada posição sabe onde está no heap (noHeapMaior/noHeapMenor)
+	private final class Heap {
+		private final boolean maisReservados;
+		private int[] posicoes = new int[8];
+		private int tamanho;
+
+		Heap(boolean maisReservados) {
+			this.maisReservados = maisReservados;
+		}
+
+		boolean antes(int posicaoA, int posicaoB) {
+			return RankingQuartos.antes(contagens[posicaoA], quartos[posicaoA],
+					contagens[posicaoB], quartos[posicaoB], maisReservados);
+		}
+
+		private int[] indices() {
+			return maisReservados ? noHeapMaior : noHeapMenor;
+		}
+
+		void inserir(int posicao) {
+			if (tamanho == posicoes.length) {
+				posicoes = Arrays.copyOf(posicoes, tamanho * 2);
+			}
+			posicionar(tamanho++, posicao);
+			subir(tamanho - 1);
+		}
+
+		void remover(int posicao) {
+			int indice = indices()[posicao];
+			indices()[posicao] = VAZIO;
+			int ultima = posicoes[--tamanho];
+			if (indice == tamanho) {
+				return;
+			}
+			posicionar(indice, ultima);
+			ajustar(ultima);
+		}
+
+		void ajustar(int posicao) {
+			int indice = indices()[posicao];
+			if (!subir(indice)) {
+				descer(indice);
+			}
+		}
+
+		private boolean subir(int indice) {
+			boolean subiu = false;
+			while (indice > 0) {
+				int pai = (indice - 1) / 2;
+				if (!antes(posicoes[indice], posicoes[pai])) {
+					break;
+				}
+				trocar(indice, pai);
+				indice = pai;
+				subiu = true;
+			}
+			return subiu;
+		}
+
+		private void descer(int indice) {
+			while (true) {
+				int melhor = indice;
+				for (int filho = 2 * indice + 1; filho <= 2 * indice + 2 && filho < tamanho; filho++) {
+					if (antes(posicoes[filho], posicoes[melhor])) {
+						melhor = filho;
+					}
+				}
+				if (melhor == indice) {
+					return;
+				}
+				trocar(indice, melhor);
+				indice = melhor;
+			}
+		}
+
+		private void trocar(int a, int b) {
+			int posicaoA = posicoes[a];
+			posicionar(a, posicoes[b]);
+			posicionar(b, posicaoA);
+		}
+
+		private void posicionar(int indice, int posicao) {
+			posicoes[indice] = posicao;
+			indices()[posicao] = indice;
+		}
+	}
+}
@@ -1,59 +1,172 @@
 package SistemaHotel;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class RedBlackTree<T extends Reserva> {
+public class RedBlackTree<T extends Reserva> implements Iterable<T> {
 
 	private enum Color {
 		RED,
 		BLACK
 	}
 
-	private class Node {
+	// Também serve de handle opaco: o nó mantém sua identidade até ser removido
+	public final class Node {
 		private T value;
 		Color color;
 		Node left, right, parent;
+		int maxCheckOut; // Maior check-out (epoch day) da subárvore (índice de intervalos)
+		int height; // Nós no caminho mais longo até uma folha da subárvore
 
 		public Node(T value) {
 			this.value = value;
 			this.color = Color.RED;
 			this.left = this.right = this.parent = null;
+			this.maxCheckOut = value.getCheckOutDia();
+			this.height = 1;
+		}
+
+		public T getValue() {
+			return value;
 		}
 	}
 
 	private Node root;
+	private int size;
+	private long rotations; // Acumulado desde a criação; lido pela instrumentação
+	private volatile int height; // Altura da raiz ao fim de cada alteração; lida sem trava pela instrumentação
+	private final Comparator<? super T> comparator;
 
 	public RedBlackTree() {
-		root = null;
+		this(Reserva::compareTo);
+	}
+
+	public RedBlackTree(Comparator<? super T> comparator) {
+		this.root = null;
+		this.comparator = comparator;
+	}
+
+	// Árvores com mais nós que isso são montadas em paralelo, uma subárvore por tarefa
+	private static final int PARALLEL_BUILD_THRESHOLD = 1 << 14;
+
+	// Monta a árvore a partir de valores já ordenados pelo comparador, em O(n) e sem rotações:
+	// o meio de cada faixa vira a raiz da subárvore, e os nós do nível mais profundo ficam vermelhos.
+	public static <T extends Reserva> RedBlackTree<T> fromSorted(List<? extends T> sorted, Comparator<? super T> comparator) {
+		for (int i = 1; i < sorted.size(); i++) {
+			if (comparator.compare(sorted.get(i - 1), sorted.get(i)) > 0) {
+				throw new IllegalArgumentException("Valores fora de ordem na posição " + i + ".");
+			}
+		}
+		RedBlackTree<T> tree = new RedBlackTree<>(comparator);
+		tree.buildFrom(sorted);
+		return tree;
+	}
+
+	public static <T extends Reserva> RedBlackTree<T> fromSorted(List<? extends T> sorted) {
+		return fromSorted(sorted, Reserva::compareTo);
+	}
+
+	// Importação sem ordem: ordenação paralela seguida da montagem em O(n)
+	public static <T extends Reserva> RedBlackTree<T> fromUnsorted(Collection<? extends T> values, Comparator<? super T> comparator) {
+		@SuppressWarnings("unchecked")
+		T[] array = (T[]) values.toArray(new Reserva[0]);
+		Arrays.parallelSort(array, comparator);
+		return fromSorted(Arrays.asList(array), comparator);
+	}
+
+	private void buildFrom(List<? extends T> sorted) {
+		int n = sorted.size();
+		if (n == 0) {
+			return;
+		}
+		int redDepth = 31 - Integer.numberOfLeadingZeros(n); // Profundidade do último nível, floor(log2 n)
+		root = build(sorted, 0, n, 0, redDepth);
+		root.color = Color.BLACK;
+		size = n;
+		height = root.height;
+	}
+
+	// Faixa [from, to) na profundidade 'depth'; faixas grandes montam a metade esquerda em outra tarefa
+	private Node build(List<? extends T> sorted, int from, int to, int depth, int redDepth) {
+		if (from >= to) {
+			return null;
+		}
+		int middle = (from + to) >>> 1;
+		if (to - from > PARALLEL_BUILD_THRESHOLD) {
+			ForkJoinTask<Node> left = ForkJoinTask.adapt(() -> build(sorted, from, middle, depth + 1, redDepth)).fork();
+			Node right = build(sorted, middle + 1, to, depth + 1, redDepth);
+			return link(sorted.get(middle), left.join(), right, depth, redDepth);
+		}
+		return link(sorted.get(middle), build(sorted, from, middle, depth + 1, redDepth),
+				build(sorted, middle + 1, to, depth + 1, redDepth), depth, redDepth);
+	}
+
+	private Node link(T value, Node left, Node right, int depth, int redDepth) {
+		Node node = new Node(value);
+		node.color = depth == redDepth ? Color.RED : Color.BLACK;
+		node.left = left;
+		node.right = right;
+		if (left != null) {
+			left.parent = node;
+		}
+		if (right != null) {
+			right.parent = node;
+		}
+		updateMax(node);
+		return node;
+	}
+
+	// Percorre os handles em ordem; usado para indexar os nós de uma árvore montada em bloco
+	void forEachNode(Consumer<Node> action) {
+		Node node = root == null ? null : minimum(root);
+		while (node != null) {
+			action.accept(node);
+			node = successor(node);
+		}
 	}
 
-	public void insert(T value) {
+	// Valores equivalentes são aceitos e ficam após os já existentes (multiconjunto)
+	public Node insert(T value) {
 		Node newNode = new Node(value);
 		root = insertNode(root, newNode);
 		fixInsertion(newNode);
+		size++;
+		height = root.height;
+		return newNode;
 	}
 
 	private Node insertNode(Node current, Node newNode) {
 		if (current == null)
 			return newNode;
 
-		if (newNode.value.compareTo(current.value) < 0) {
+		if (comparator.compare(newNode.value, current.value) < 0) {
 			current.left = insertNode(current.left, newNode);
 			current.left.parent = current;
-		} else if (newNode.value.compareTo(current.value) > 0) {
+		} else {
 			current.right = insertNode(current.right, newNode);
 			current.right.parent = current;
 		}
 
+		updateMax(current);
 		return current;
 	}
 
 	private void fixInsertion(Node node) {
 	    Node parent, grandparent;
 
-	    while (node != root && node.parent != null && node.parent.color == Color.RED) {
+	    while (node != root && node.color == Color.RED && node.parent != null && node.parent.color == Color.RED) {
 	        parent = node.parent;
 	        grandparent = parent.parent;
 
@@ -100,6 +213,7 @@ public class RedBlackTree<T extends Reserva> {
 	}
 
 	private void rotateLeft(Node node) {
+		rotations++;
 		Node newNode = node.right;
 		node.right = newNode.left;
 
@@ -117,9 +231,14 @@ public class RedBlackTree<T extends Reserva> {
 
 		newNode.left = node;
 		node.parent = newNode;
+
+		updateMax(node);
+		updateMax(newNode);
+		updateHeights(newNode.parent);
 	}
 
 	private void rotateRight(Node node) {
+		rotations++;
 		Node newNode = node.left;
 		node.left = newNode.right;
 
@@ -137,6 +256,10 @@ public class RedBlackTree<T extends Reserva> {
 
 		newNode.right = node;
 		node.parent = newNode;
+
+		updateMax(node);
+		updateMax(newNode);
+		updateHeights(newNode.parent);
 	}
 
 	private void swapColors(Node node1, Node node2) {
@@ -165,18 +288,28 @@ public class RedBlackTree<T extends Reserva> {
 	public void delete(T value, Comparator<T> comparator) {
 		Node nodeToDelete = searchNode(root, value, comparator);
 
-		if (nodeToDelete == null) {
-			return;
+		if (nodeToDelete != null) {
+			deleteNode(nodeToDelete);
+		}
+	}
+
+	// Remove diretamente um nó obtido em insert, sem nova busca
+	public void deleteNode(Node nodeToDelete) {
+		if (nodeToDelete.parent == null && nodeToDelete != root) {
+			return; // Nó já removido
 		}
 		Color originalColor = nodeToDelete.color;
 
 		Node nodeToFix;
+		Node fixParent;
 
 		if (nodeToDelete.left == null) {
 			nodeToFix = nodeToDelete.right;
+			fixParent = nodeToDelete.parent;
 			transplant(nodeToDelete, nodeToDelete.right);
 		} else if (nodeToDelete.right == null) {
 			nodeToFix = nodeToDelete.left;
+			fixParent = nodeToDelete.parent;
 			transplant(nodeToDelete, nodeToDelete.left);
 		} else {
 			Node successor = minimum(nodeToDelete.right);
@@ -184,10 +317,12 @@ public class RedBlackTree<T extends Reserva> {
 			nodeToFix = successor.right;
 
 			if (successor.parent == nodeToDelete) {
+				fixParent = successor;
 				if (nodeToFix != null) {
 					nodeToFix.parent = successor;
 				}
 			} else {
+				fixParent = successor.parent;
 				transplant(successor, successor.right);
 				successor.right = nodeToDelete.right;
 				successor.right.parent = successor;
@@ -199,9 +334,18 @@ public class RedBlackTree<T extends Reserva> {
 			successor.color = nodeToDelete.color;
 		}
 
+		// Os rebalanceamentos abaixo dependem de maxCheckOut já correto no caminho até a raiz
+		for (Node node = fixParent; node != null; node = node.parent) {
+			updateMax(node);
+		}
+
 		if (originalColor == Color.BLACK) {
-			fixDeletion(nodeToFix);
+			fixDeletion(nodeToFix, fixParent);
 		}
+
+		nodeToDelete.left = nodeToDelete.right = nodeToDelete.parent = null;
+		size--;
+		height = root == null ? 0 : root.height;
 	}
 
 	private void transplant(Node u, Node v) {
@@ -218,6 +362,60 @@ public class RedBlackTree<T extends Reserva> {
 		}
 	}
 
+	// Recalcula maxCheckOut e a altura do nó a partir dos filhos.
+	// Datas ausentes valem Reserva.SEM_DATA, menor que qualquer dia, e não contam para o máximo
+	private void updateMax(Node node) {
+		int max = node.value.getCheckOutDia();
+		if (node.left != null && node.left.maxCheckOut > max) {
+			max = node.left.maxCheckOut;
+		}
+		if (node.right != null && node.right.maxCheckOut > max) {
+			max = node.right.maxCheckOut;
+		}
+		node.maxCheckOut = max;
+		node.height = 1 + Math.max(heightOf(node.left), heightOf(node.right));
+	}
+
+	// Uma rotação não muda o maxCheckOut dos ancestrais, mas pode mudar a altura; sobe até ela parar de mudar
+	private void updateHeights(Node node) {
+		while (node != null) {
+			int updated = 1 + Math.max(heightOf(node.left), heightOf(node.right));
+			if (updated == node.height) {
+				return;
+			}
+			node.height = updated;
+			node = node.parent;
+		}
+	}
+
+	private static int heightOf(RedBlackTree<?>.Node node) {
+		return node == null ? 0 : node.height;
+	}
+
+	// Retorna um valor cujo intervalo [checkIn, checkOut) sobrepõe [start, end), ou null.
+	// Pressupõe comparador com checkIn como chave primária; desce um único caminho, O(log n) e sem alocação.
+	public T findOverlap(LocalDate start, LocalDate end) {
+		return findOverlap(Reserva.paraDia(start), Reserva.paraDia(end));
+	}
+
+	// Mesma busca com as datas em epoch day
+	public T findOverlap(int start, int end) {
+		Node current = root;
+		while (current != null) {
+			int checkIn = current.value.getCheckInDia();
+			int checkOut = current.value.getCheckOutDia();
+			if (checkIn != Reserva.SEM_DATA && checkOut != Reserva.SEM_DATA && start < checkOut && end > checkIn) {
+				return current.value;
+			}
+			if (current.left != null && current.left.maxCheckOut > start) {
+				current = current.left;
+			} else {
+				current = current.right;
+			}
+		}
+		return null;
+	}
+
 	private Node minimum(Node node) {
 		while (node.left != null) {
 			node = node.left;
@@ -225,22 +423,24 @@ public class RedBlackTree<T extends Reserva> {
 		return node;
 	}
 
-	private void fixDeletion(Node node) {
+	// O pai é passado à parte porque nodeToFix pode ser null (folha preta removida)
+	private void fixDeletion(Node node, Node parent) {
 		while (node != root && (node == null || node.color == Color.BLACK)) {
-			if (node == node.parent.left) {
-				Node sibling = node.parent.right;
+			if (node == parent.left) {
+				Node sibling = parent.right;
 
 				if (sibling.color == Color.RED) {
 					sibling.color = Color.BLACK;
-					node.parent.color = Color.RED;
-					rotateLeft(node.parent);
-					sibling = node.parent.right;
+					parent.color = Color.RED;
+					rotateLeft(parent);
+					sibling = parent.right;
 				}
 
 				if ((sibling.left == null || sibling.left.color == Color.BLACK) &&
 						(sibling.right == null || sibling.right.color == Color.BLACK)) {
 					sibling.color = Color.RED;
-					node = node.parent;
+					node = parent;
+					parent = node.parent;
 				} else {
 					if (sibling.right == null || sibling.right.color == Color.BLACK) {
 						if (sibling.left != null) {
@@ -248,31 +448,32 @@ public class RedBlackTree<T extends Reserva> {
 						}
 						sibling.color = Color.RED;
 						rotateRight(sibling);
-						sibling = node.parent.right;
+						sibling = parent.right;
 					}
 
-					sibling.color = node.parent.color;
-					node.parent.color = Color.BLACK;
+					sibling.color = parent.color;
+					parent.color = Color.BLACK;
 					if (sibling.right != null) {
 						sibling.right.color = Color.BLACK;
 					}
-					rotateLeft(node.parent);
+					rotateLeft(parent);
 					node = root;
 				}
 			} else {
-				Node sibling = node.parent.left;
+				Node sibling = parent.left;
 
 				if (sibling.color == Color.RED) {
 					sibling.color = Color.BLACK;
-					node.parent.color = Color.RED;
-					rotateRight(node.parent);
-					sibling = node.parent.left;
+					parent.color = Color.RED;
+					rotateRight(parent);
+					sibling = parent.left;
 				}
 
 				if ((sibling.right == null || sibling.right.color == Color.BLACK) &&
 						(sibling.left == null || sibling.left.color == Color.BLACK)) {
 					sibling.color = Color.RED;
-					node = node.parent;
+					node = parent;
+					parent = node.parent;
 				} else {
 					if (sibling.left == null || sibling.left.color == Color.BLACK) {
 						if (sibling.right != null) {
@@ -280,15 +481,15 @@ public class RedBlackTree<T extends Reserva> {
 						}
 						sibling.color = Color.RED;
 						rotateLeft(sibling);
-						sibling = node.parent.left;
+						sibling = parent.left;
 					}
 
-					sibling.color = node.parent.color;
-					node.parent.color = Color.BLACK;
+					sibling.color = parent.color;
+					parent.color = Color.BLACK;
 					if (sibling.left != null) {
 						sibling.left.color = Color.BLACK;
 					}
-					rotateRight(node.parent);
+					rotateRight(parent);
 					node = root;
 				}
 			}
@@ -315,17 +516,161 @@ public class RedBlackTree<T extends Reserva> {
 		}
 	}
 
+	public int size() {
+		return size;
+	}
+
+	// Rotações feitas por inserções e remoções; a montagem em bloco não rotaciona
+	public long getRotations() {
+		return rotations;
+	}
+
+	// Nós no caminho mais longo da raiz a uma folha; mantida a cada alteração, O(1) e sem trava
+	public int height() {
+		return height;
+	}
+
 	public List<T> inOrderTraversal() {
-		List<T> result = new ArrayList<>();
-		inOrderHelper(root, result);
+		List<T> result = new ArrayList<>(size);
+		for (T value : this) {
+			result.add(value);
+		}
 		return result;
 	}
 
-	private void inOrderHelper(Node node, List<T> result) {
-		if (node != null) {
-			inOrderHelper(node.left, result);
-			result.add(node.value);
-			inOrderHelper(node.right, result);
+	// Percurso em ordem preguiçoso, sem recursão: o sucessor é obtido pelos ponteiros de pai
+	@Override
+	public Iterator<T> iterator() {
+		return new TreeIterator(root == null ? null : minimum(root), NO_END, NO_FILTER);
+	}
+
+	@Override
+	public Spliterator<T> spliterator() {
+		return Spliterators.spliterator(iterator(), size, Spliterator.ORDERED | Spliterator.NONNULL);
+	}
+
+	public Stream<T> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+	// Valores com checkIn em [fromCheckIn, toCheckIn); null deixa o limite aberto.
+	// Pressupõe comparador com checkIn como chave primária; o início é localizado em O(log n).
+	public Iterable<T> subRange(LocalDate fromCheckIn, LocalDate toCheckIn) {
+		long to = toCheckIn == null ? NO_END : toCheckIn.toEpochDay();
+		return () -> new TreeIterator(lowerBound(fromCheckIn), to, NO_FILTER);
+	}
+
+	// Valores cujo intervalo [checkIn, checkOut) sobrepõe [start, end), em ordem.
+	// Subárvores com maxCheckOut <= start são puladas, então só os nós relevantes são visitados.
+	public Iterable<T> overlapping(LocalDate start, LocalDate end) {
+		long from = start.toEpochDay();
+		long to = end.toEpochDay();
+		return () -> new TreeIterator(root == null ? null : firstCheckOutAfter(root, from), to, from);
+	}
+
+	private Node lowerBound(LocalDate fromCheckIn) {
+		if (fromCheckIn == null) {
+			return root == null ? null : minimum(root);
+		}
+		long from = fromCheckIn.toEpochDay();
+		Node candidate = null;
+		Node current = root;
+		while (current != null) {
+			if (current.value.getCheckInDia() < from) {
+				current = current.right;
+			} else {
+				candidate = current;
+				current = current.left;
+			}
+		}
+		return candidate;
+	}
+
+	// Limites em epoch day; long para que os valores "sem limite" fiquem fora do intervalo de int
+	private static final long NO_END = Long.MAX_VALUE;
+	private static final long NO_FILTER = Long.MIN_VALUE;
+
+	// Primeiro nó em ordem da subárvore com checkOut > start, ou null
+	private Node firstCheckOutAfter(Node node, long start) {
+		if (node.maxCheckOut <= start) {
+			return null;
+		}
+		while (true) {
+			if (node.left != null && node.left.maxCheckOut > start) {
+				node = node.left;
+			} else if (node.value.getCheckOutDia() > start) {
+				return node;
+			} else {
+				node = node.right;
+			}
+		}
+	}
+
+	private Node successor(Node node) {
+		if (node.right != null) {
+			return minimum(node.right);
+		}
+		Node parent = node.parent;
+		while (parent != null && node == parent.right) {
+			node = parent;
+			parent = parent.parent;
+		}
+		return parent;
+	}
+
+	// Sucessor restrito aos nós com checkOut > start
+	private Node successorCheckOutAfter(Node node, long start) {
+		if (node.right != null && node.right.maxCheckOut > start) {
+			return firstCheckOutAfter(node.right, start);
+		}
+		Node child = node;
+		Node parent = node.parent;
+		while (parent != null) {
+			if (child == parent.left) {
+				if (parent.value.getCheckOutDia() > start) {
+					return parent;
+				}
+				if (parent.right != null && parent.right.maxCheckOut > start) {
+					return firstCheckOutAfter(parent.right, start);
+				}
+			}
+			child = parent;
+			parent = parent.parent;
+		}
+		return null;
+	}
+
+	private class TreeIterator implements Iterator<T> {
+		private Node next;
+		private final long endCheckIn;    // Exclusivo; NO_END = sem limite
+		private final long startCheckOut; // Filtro checkOut > startCheckOut; NO_FILTER = sem filtro
+
+		TreeIterator(Node first, long endCheckIn, long startCheckOut) {
+			this.endCheckIn = endCheckIn;
+			this.startCheckOut = startCheckOut;
+			this.next = withinEnd(first);
+		}
+
+		private Node withinEnd(Node node) {
+			if (node != null && node.value.getCheckInDia() >= endCheckIn) {
+				return null;
+			}
+			return node;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public T next() {
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+			Node current = next;
+			next = withinEnd(startCheckOut == NO_FILTER ? successor(current) : successorCheckOutAfter(current, startCheckOut));
+			return current.value;
 		}
 	}
 }
@@ -0,0 +1,150 @@
+package SistemaHotel;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Frente de uma rede de hotéis: cada hotel é uma partição HotelReservaSistema independente, com
+// índices, travas e journal próprios. Operações com hotelId vão direto à partição; consultas da
+// rede inteira consultam as partições em paralelo e juntam os resultados.
+public class RedeHoteis {
+
+	private final Map<String, HotelReservaSistema> hoteis = new ConcurrentHashMap<>();
+	private final RegistroEventos eventos;
+	private final RegistroEventos eventosDasParticoes; // Sem fechar: o registro é fechado pela rede
+
+	public RedeHoteis() {
+		this(RegistroEventos.console());
+	}
+
+	// 'eventos' é compartilhado pelas partições criadas por adicionarHotel(String)
+	public RedeHoteis(RegistroEventos eventos) {
+		this.eventos = eventos;
+		this.eventosDasParticoes = eventos::registrar;
+	}
+
+	// Partição somente em memória
+	public HotelReservaSistema adicionarHotel(String hotelId) {
+		return adicionarHotel(hotelId, new HotelReservaSistema(eventosDasParticoes));
+	}
+
+	// Partição persistente, com journal em 'diretorio' (um diretório por hotel)
+	public HotelReservaSistema adicionarHotel(String hotelId, Path diretorio) throws IOException {
+		return adicionarHotel(hotelId, new HotelReservaSistema(diretorio, eventosDasParticoes));
+	}
+
+	public HotelReservaSistema adicionarHotel(String hotelId, HotelReservaSistema sistema) {
+		if (hoteis.putIfAbsent(hotelId, sistema) != null) {
+			throw new IllegalArgumentException("Hotel já existe: " + hotelId);
+		}
+		return sistema;
+	}
+
+	// null se o hotel não existir
+	public HotelReservaSistema getHotel(String hotelId) {
+		return hoteis.get(hotelId);
+	}
+
+	public List<String> getHoteis() {
+		return new ArrayList<>(new TreeMap<>(hoteis).keySet());
+	}
+
+	public ResultadoOperacao adicionarQuarto(String hotelId, int numeroQuarto, String categoria) {
+		HotelReservaSistema sistema = particao(hotelId, EventoReserva.Operacao.ADICIONAR_QUARTO);
+		return sistema == null ? ResultadoOperacao.HOTEL_NAO_ENCONTRADO : sistema.adicionarQuarto(numeroQuarto, categoria);
+	}
+
+	public ResultadoOperacao cadastrarReserva(String hotelId, Reserva novaReserva) {
+		HotelReservaSistema sistema = particao(hotelId, EventoReserva.Operacao.CADASTRAR_RESERVA);
+		return sistema == null ? ResultadoOperacao.HOTEL_NAO_ENCONTRADO : sistema.cadastrarReserva(novaReserva);
+	}
+
+	// Tudo ou nada dentro de um hotel; lotes de vários hotéis devem ser separados pelo chamador
+	public ResultadoOperacao cadastrarReservas(String hotelId, List<Reserva> novasReservas) {
+		HotelReservaSistema sistema = particao(hotelId, EventoReserva.Operacao.CADASTRAR_LOTE);
+		return sistema == null ? ResultadoOperacao.HOTEL_NAO_ENCONTRADO : sistema.cadastrarReservas(novasReservas);
+	}
+
+	public ResultadoOperacao cancelarReserva(String hotelId, String clienteId) {
+		HotelReservaSistema sistema = particao(hotelId, EventoReserva.Operacao.CANCELAR_RESERVA);
+		return sistema == null ? ResultadoOperacao.HOTEL_NAO_ENCONTRADO : sistema.cancelarReserva(clienteId);
+	}
+
+	public List<Quarto> consultarDisponibilidade(String hotelId, LocalDate data, String categoria) {
+		HotelReservaSistema sistema = hoteis.get(hotelId);
+		return sistema == null ? new ArrayList<>() : sistema.consultarDisponibilidade(data, categoria);
+	}
+
+	private HotelReservaSistema particao(String hotelId, EventoReserva.Operacao operacao) {
+		HotelReservaSistema sistema = hoteis.get(hotelId);
+		if (sistema == null) {
+			eventos.registrar(new EventoReserva(operacao, ResultadoOperacao.HOTEL_NAO_ENCONTRADO, null, 0, hotelId));
+		}
+		return sistema;
+	}
+
+	// Reservas ativas do cliente em cada hotel, na ordem de cadastro; hotéis sem reservas ficam de fora
+	public Map<String, List<Reserva>> obterReservasPorCliente(String clienteId) {
+		return hoteis.entrySet().parallelStream()
+				.map(entry -> Map.entry(entry.getKey(), entry.getValue().obterReservasPorCliente(clienteId)))
+				.filter(entry -> !entry.getValue().isEmpty())
+				.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, TreeMap::new));
+	}
+
+	// Quartos livres da categoria na noite de 'data', por hotel
+	public Map<String, List<Quarto>> consultarDisponibilidade(LocalDate data, String categoria) {
+		return hoteis.entrySet().parallelStream()
+				.map(entry -> Map.entry(entry.getKey(), entry.getValue().consultarDisponibilidade(data, categoria)))
+				.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, TreeMap::new));
+	}
+
+	// Quarto-noites ocupadas na rede, nas noites [inicio, fim)
+	public long noitesOcupadas(LocalDate inicio, LocalDate fim) {
+		return hoteis.values().parallelStream()
+				.mapToLong(sistema -> sistema.getMetricas().noitesOcupadas(inicio, fim))
+				.sum();
+	}
+
+	// Taxa de ocupação da rede (0 a 100) nas noites de inicio a fim (inclusive), pelo mesmo critério de
+	// HotelReservaSistema.gerarRelatorioTaxaOcupacao; hotéis maiores pesam mais
+	public double taxaOcupacao(LocalDate inicio, LocalDate fim) {
+		if (inicio == null || fim == null || fim.isBefore(inicio)) {
+			throw new IllegalArgumentException("Período inválido");
+		}
+		long totalNoites = ChronoUnit.DAYS.between(inicio, fim) + 1;
+		long[] ocupadasETotal = hoteis.values().parallelStream()
+				.map(sistema -> new long[] {
+						sistema.getMetricas().noitesOcupadas(inicio, fim.plusDays(1)),
+						sistema.totalQuartos() * totalNoites })
+				.reduce(new long[2], (a, b) -> new long[] { a[0] + b[0], a[1] + b[1] });
+		return ocupadasETotal[1] == 0 ? 0 : ocupadasETotal[0] * 100.0 / ocupadasETotal[1];
+	}
+
+	// Encerra todas as partições e depois o registro de eventos; a primeira falha é relançada
+	// depois de tentar as demais
+	public void fechar() throws IOException {
+		IOException falha = null;
+		for (HotelReservaSistema sistema : hoteis.values()) {
+			try {
+				sistema.fechar();
+			} catch (IOException e) {
+				if (falha == null) {
+					falha = e;
+				} else {
+					falha.addSuppressed(e);
+				}
+			}
+		}
+		eventos.fechar();
+		if (falha != null) {
+			throw falha;
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package SistemaHotel;
+
+// Destino dos eventos das operações de reserva. registrar é chamado no caminho das reservas,
+// depois de liberadas as travas, e não deve bloquear; a formatação fica a cargo do destino.
+@FunctionalInterface
+public interface RegistroEventos {
+
+	void registrar(EventoReserva evento);
+
+	// Espera até que os eventos já registrados tenham sido escritos
+	default void esvaziar() {
+	}
+
+	// Escreve o que estiver pendente e libera os recursos; chamado por HotelReservaSistema.fechar
+	default void fechar() {
+	}
+
+	// Síncrono: escreve cada evento no System.out ao registrá-lo (comportamento do console interativo)
+	static RegistroEventos console() {
+		return evento -> System.out.println(evento.formatar());
+	}
+
+	// Descarta os eventos; os resultados continuam disponíveis como valores de retorno
+	static RegistroEventos nenhum() {
+		return evento -> {
+		};
+	}
+}
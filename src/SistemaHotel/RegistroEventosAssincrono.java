@@ -0,0 +1,144 @@
+package SistemaHotel;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+// Registro não bloqueante: as operações publicam o evento em um buffer circular sem travas
+// (vários produtores, um consumidor) e uma thread de fundo formata e escreve em lotes.
+// Com o buffer cheio o evento é descartado e contado; quem publica nunca espera pela escrita.
+public final class RegistroEventosAssincrono implements RegistroEventos {
+
+	private static final int MAXIMO_POR_LOTE = 256; // Eventos por escrita no destino
+	private static final long ESPERA_OCIOSA_NANOS = 1_000_000; // Intervalo de verificação com o buffer vazio
+
+	private final EventoReserva[] eventos;
+	// Por posição: igual à sequência de escrita quando livre, sequência + 1 quando preenchida
+	private final AtomicLongArray sequencias;
+	private final int mascara;
+	private final AtomicLong proximaEscrita = new AtomicLong();
+	private volatile long proximaLeitura; // Só o consumidor escreve
+	private final AtomicLong descartados = new AtomicLong();
+
+	private final PrintStream destino;
+	private final Function<EventoReserva, String> formato;
+	private final Thread consumidor;
+	private volatile boolean ativo = true;
+
+	public RegistroEventosAssincrono(PrintStream destino, int capacidade) {
+		this(destino, capacidade, EventoReserva::formatar);
+	}
+
+	// 'capacidade' é arredondada para a próxima potência de 2
+	public RegistroEventosAssincrono(PrintStream destino, int capacidade, Function<EventoReserva, String> formato) {
+		if (capacidade < 1 || capacidade > 1 << 30) {
+			throw new IllegalArgumentException("Capacidade inválida: " + capacidade);
+		}
+		int tamanho = Integer.highestOneBit(capacidade);
+		if (tamanho < capacidade) {
+			tamanho <<= 1;
+		}
+		this.eventos = new EventoReserva[tamanho];
+		this.sequencias = new AtomicLongArray(tamanho);
+		for (int i = 0; i < tamanho; i++) {
+			sequencias.set(i, i);
+		}
+		this.mascara = tamanho - 1;
+		this.destino = destino;
+		this.formato = formato;
+		this.consumidor = new Thread(this::consumir, "registro-eventos");
+		consumidor.setDaemon(true);
+		consumidor.start();
+	}
+
+	@Override
+	public void registrar(EventoReserva evento) {
+		while (true) {
+			long posicao = proximaEscrita.get();
+			int indice = (int) posicao & mascara;
+			long diferenca = sequencias.get(indice) - posicao;
+			if (diferenca == 0) {
+				if (proximaEscrita.compareAndSet(posicao, posicao + 1)) {
+					eventos[indice] = evento;
+					sequencias.set(indice, posicao + 1); // Publica o evento para o consumidor
+					return;
+				}
+			} else if (diferenca < 0) {
+				// Posição ainda não consumida uma volta atrás: buffer cheio
+				descartados.incrementAndGet();
+				return;
+			}
+			// diferenca > 0: outro produtor ocupou a posição; tenta a seguinte
+		}
+	}
+
+	// Eventos perdidos por buffer cheio desde a criação
+	public long getDescartados() {
+		return descartados.get();
+	}
+
+	private void consumir() {
+		StringBuilder lote = new StringBuilder(16 * 1024);
+		while (ativo) {
+			if (drenar(lote) == 0) {
+				LockSupport.parkNanos(this, ESPERA_OCIOSA_NANOS);
+			}
+		}
+		while (drenar(lote) > 0) {
+			// Últimos eventos publicados antes de fechar
+		}
+	}
+
+	// Só na thread consumidora
+	private int drenar(StringBuilder lote) {
+		long leitura = proximaLeitura;
+		int lidos = 0;
+		while (lidos < MAXIMO_POR_LOTE) {
+			int indice = (int) leitura & mascara;
+			if (sequencias.get(indice) != leitura + 1) {
+				break;
+			}
+			EventoReserva evento = eventos[indice];
+			eventos[indice] = null;
+			sequencias.set(indice, leitura + eventos.length); // Libera a posição para a próxima volta
+			leitura++;
+			lidos++;
+			try {
+				lote.append(formato.apply(evento)).append(System.lineSeparator());
+			} catch (RuntimeException e) {
+				lote.append("Erro ao formatar evento ").append(evento.getOperacao())
+						.append(": ").append(e).append(System.lineSeparator());
+			}
+		}
+		if (lidos > 0) {
+			destino.print(lote);
+			destino.flush();
+			lote.setLength(0);
+			proximaLeitura = leitura;
+		}
+		return lidos;
+	}
+
+	@Override
+	public void esvaziar() {
+		long alvo = proximaEscrita.get();
+		while (proximaLeitura < alvo && consumidor.isAlive()) {
+			LockSupport.unpark(consumidor);
+			Thread.onSpinWait();
+			Thread.yield();
+		}
+	}
+
+	@Override
+	public void fechar() {
+		ativo = false;
+		LockSupport.unpark(consumidor);
+		try {
+			consumidor.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package SistemaHotel;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+// Instrumentação operacional: histogramas de latência, contadores e medidores por nome.
+// Os instrumentos são criados uma vez e guardados por quem mede; a leitura é sob demanda
+// (getters, formatarTexto/formatarJson) ou por despejo periódico.
+public final class RegistroMetricas {
+
+	private final Map<String, HistogramaLatencia> histogramas = new ConcurrentHashMap<>();
+	private final Map<String, LongAdder> contadores = new ConcurrentHashMap<>();
+	private final Map<String, LongSupplier> medidores = new ConcurrentHashMap<>();
+	private ScheduledExecutorService agendador; // Criado no primeiro despejo periódico
+
+	public HistogramaLatencia histograma(String nome) {
+		return histogramas.computeIfAbsent(nome, chave -> new HistogramaLatencia());
+	}
+
+	public LongAdder contador(String nome) {
+		return contadores.computeIfAbsent(nome, chave -> new LongAdder());
+	}
+
+	// Valor calculado na leitura; não deve tomar travas demoradas
+	public void medidor(String nome, LongSupplier valor) {
+		medidores.put(nome, valor);
+	}
+
+	public Map<String, HistogramaLatencia> getHistogramas() {
+		return new TreeMap<>(histogramas);
+	}
+
+	public Map<String, Long> getContadores() {
+		Map<String, Long> valores = new TreeMap<>();
+		contadores.forEach((nome, contador) -> valores.put(nome, contador.sum()));
+		return valores;
+	}
+
+	public Map<String, Long> getMedidores() {
+		Map<String, Long> valores = new TreeMap<>();
+		medidores.forEach((nome, medidor) -> valores.put(nome, medidor.getAsLong()));
+		return valores;
+	}
+
+	// Uma linha por instrumento; latências em microssegundos
+	public String formatarTexto() {
+		StringBuilder texto = new StringBuilder();
+		for (Map.Entry<String, HistogramaLatencia> entry : getHistogramas().entrySet()) {
+			HistogramaLatencia histograma = entry.getValue();
+			texto.append(String.format(Locale.ROOT,
+					"%s contagem=%d media=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus p999=%.1fus max=%.1fus%n",
+					entry.getKey(), histograma.getContagem(), histograma.getMedia() / 1000,
+					histograma.percentil(50) / 1000.0, histograma.percentil(90) / 1000.0,
+					histograma.percentil(99) / 1000.0, histograma.percentil(99.9) / 1000.0,
+					histograma.getMaximo() / 1000.0));
+		}
+		for (Map.Entry<String, Long> entry : getContadores().entrySet()) {
+			texto.append(entry.getKey()).append(' ').append(entry.getValue()).append(System.lineSeparator());
+		}
+		for (Map.Entry<String, Long> entry : getMedidores().entrySet()) {
+			texto.append(entry.getKey()).append(' ').append(entry.getValue()).append(System.lineSeparator());
+		}
+		return texto.toString();
+	}
+
+	// Latências em nanossegundos
+	public String formatarJson() {
+		StringBuilder json = new StringBuilder("{\"histogramas\": {");
+		String separador = "";
+		for (Map.Entry<String, HistogramaLatencia> entry : getHistogramas().entrySet()) {
+			HistogramaLatencia histograma = entry.getValue();
+			json.append(separador).append('"').append(entry.getKey()).append("\": ").append(String.format(Locale.ROOT,
+					"{\"contagem\": %d, \"mediaNs\": %.1f, \"p50Ns\": %d, \"p90Ns\": %d, \"p99Ns\": %d, "
+							+ "\"p999Ns\": %d, \"maximoNs\": %d}",
+					histograma.getContagem(), histograma.getMedia(), histograma.percentil(50),
+					histograma.percentil(90), histograma.percentil(99), histograma.percentil(99.9),
+					histograma.getMaximo()));
+			separador = ", ";
+		}
+		json.append("}, \"contadores\": ");
+		anexarValores(json, getContadores());
+		json.append(", \"medidores\": ");
+		anexarValores(json, getMedidores());
+		return json.append('}').toString();
+	}
+
+	private static void anexarValores(StringBuilder json, Map<String, Long> valores) {
+		json.append('{');
+		String separador = "";
+		for (Map.Entry<String, Long> entry : valores.entrySet()) {
+			json.append(separador).append('"').append(entry.getKey()).append("\": ").append(entry.getValue());
+			separador = ", ";
+		}
+		json.append('}');
+	}
+
+	// Entrega o texto (ou JSON) a 'destino' a cada 'intervalo', em uma thread de fundo.
+	// Cancelar o ScheduledFuture devolvido interrompe o despejo.
+	public synchronized ScheduledFuture<?> despejarPeriodicamente(Duration intervalo, boolean json,
+			Consumer<String> destino) {
+		if (agendador == null) {
+			agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+				Thread thread = new Thread(tarefa, "despejo-metricas");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		long periodo = intervalo.toNanos();
+		return agendador.scheduleAtFixedRate(() -> destino.accept(json ? formatarJson() : formatarTexto()),
+				periodo, periodo, TimeUnit.NANOSECONDS);
+	}
+}
@@ -0,0 +1,99 @@
+package SistemaHotel;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+// Relatórios calculados direto de uma versão do livro (SnapshotReservas), como reduções fork-join
+// sobre as subárvores das árvores persistentes, no ForkJoinPool escolhido. Seguem os critérios de
+// MetricasReservas: reservas ativas e estadias concluídas ocupam noites e contam para o quarto; o
+// restante do histórico são cancelamentos. Servem para análises sobre uma versão fixa e para conferir
+// os agregados incrementais; o histórico já movido para o ArquivoHistorico não entra.
+public final class RelatoriosParalelos {
+
+	private final SnapshotReservas snapshot;
+	private final ForkJoinPool pool;
+
+	public RelatoriosParalelos(SnapshotReservas snapshot) {
+		this(snapshot, ForkJoinPool.commonPool());
+	}
+
+	public RelatoriosParalelos(SnapshotReservas snapshot, ForkJoinPool pool) {
+		this.snapshot = snapshot;
+		this.pool = pool;
+	}
+
+	// Reservas ativas que sobrepõem [inicio, fim), na ordem de check-in (mesmo resultado de obterReservasNoPeriodo)
+	public List<Reserva> reservasNoPeriodo(LocalDate inicio, LocalDate fim) {
+		return executar(() -> snapshot.getReservas().overlappingStream(inicio, fim, true).toList());
+	}
+
+	// Quarto-noites ocupadas nas noites [inicio, fim)
+	public long noitesOcupadas(LocalDate inicio, LocalDate fim) {
+		int diaInicio = Reserva.paraDia(inicio);
+		int diaFim = Reserva.paraDia(fim);
+		ToLongFunction<Reserva> noites = reserva -> Math.min(reserva.getCheckOutDia(), diaFim)
+				- Math.max(reserva.getCheckInDia(), diaInicio);
+		return executar(() -> snapshot.getReservas().overlappingStream(inicio, fim, true).mapToLong(noites).sum()
+				+ snapshot.getHistorico().overlappingStream(inicio, fim, true)
+						.filter(RelatoriosParalelos::concluida).mapToLong(noites).sum());
+	}
+
+	// Cancelamentos com check-out em [inicio, fim]
+	public long cancelamentosComCheckOutEntre(LocalDate inicio, LocalDate fim) {
+		int diaFim = Reserva.paraDia(fim);
+		return executar(() -> snapshot.getHistorico().overlappingStream(inicio.minusDays(1), fim.plusDays(1), true)
+				.filter(reserva -> reserva.getCheckOutDia() <= diaFim && !concluida(reserva))
+				.count());
+	}
+
+	// Reservas não canceladas (ativas e concluídas) por quarto; cada parte conta em um mapa próprio
+	// e os mapas são somados na junção
+	public Map<Integer, Integer> reservasPorQuarto() {
+		return executar(() -> Stream.concat(snapshot.getReservas().parallelStream(),
+						snapshot.getHistorico().parallelStream().filter(RelatoriosParalelos::concluida))
+				.parallel()
+				.collect(HashMap::new,
+						(contagens, reserva) -> contagens.merge(reserva.getNumeroQuarto(), 1, Integer::sum),
+						(contagens, outras) -> outras.forEach((quarto, n) -> contagens.merge(quarto, n, Integer::sum))));
+	}
+
+	// Quarto com mais reservas (menor número no empate) e a contagem, ou null se não houver reservas
+	public Map.Entry<Integer, Integer> quartoMaisReservado() {
+		return extremo(reservasPorQuarto(), true);
+	}
+
+	public Map.Entry<Integer, Integer> quartoMenosReservado() {
+		return extremo(reservasPorQuarto(), false);
+	}
+
+	private static Map.Entry<Integer, Integer> extremo(Map<Integer, Integer> contagens, boolean maior) {
+		Map.Entry<Integer, Integer> escolhido = null;
+		for (Map.Entry<Integer, Integer> entry : contagens.entrySet()) {
+			if (escolhido == null) {
+				escolhido = entry;
+				continue;
+			}
+			int comparacao = Integer.compare(entry.getValue(), escolhido.getValue());
+			if ((maior ? comparacao > 0 : comparacao < 0)
+					|| comparacao == 0 && entry.getKey() < escolhido.getKey()) {
+				escolhido = entry;
+			}
+		}
+		return escolhido == null ? null : Map.entry(escolhido.getKey(), escolhido.getValue());
+	}
+
+	private static boolean concluida(Reserva reserva) {
+		return reserva.getStatusReserva() == StatusReserva.CONCLUIDA;
+	}
+
+	// Streams paralelos usam o pool da thread que os executa: a tarefa é submetida ao pool escolhido
+	private <R> R executar(Callable<R> relatorio) {
+		return pool.submit(relatorio).join();
+	}
+}
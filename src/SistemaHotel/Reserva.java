@@ -1,31 +1,41 @@
 package SistemaHotel;
 
 import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Reserva implements Comparable<Reserva> {
+    private static final AtomicLong PROXIMA_SEQUENCIA = new AtomicLong();
+
+    // Representação compacta: datas como epoch day, categoria internada e status enum
+    static final int SEM_DATA = Integer.MIN_VALUE; // Ordena antes de qualquer data
+
+    private final long sequencia = PROXIMA_SEQUENCIA.getAndIncrement(); // Desempate final da ordenação
     private String clienteId;
     private int numeroQuarto;
-    private LocalDate checkIn;
-    private LocalDate checkOut;
-    private String categoriaQuarto;
-    private String status; // Status da reserva (ex.: Confirmada, Cancelada)
+    private int checkIn = SEM_DATA;
+    private int checkOut = SEM_DATA;
+    private int categoriaQuarto = CatalogoCategorias.SEM_CATEGORIA;
+    private String categoriaNaoCatalogada; // Nome que nenhum quarto usa; fica fora do catálogo
+    private StatusReserva status; // Status da reserva (ex.: Confirmada, Cancelada)
 
     public Reserva(String clienteId, int numeroQuarto, String nomeCliente, LocalDate checkIn, LocalDate checkOut, String categoriaQuarto) {
         this.clienteId = clienteId;
         this.numeroQuarto = numeroQuarto;
-        this.checkIn = checkIn;
-        this.checkOut = checkOut;
-        this.categoriaQuarto = categoriaQuarto;
-        this.status = "Confirmada";  
+        this.checkIn = paraDia(checkIn);
+        this.checkOut = paraDia(checkOut);
+        this.categoriaQuarto = CatalogoCategorias.buscar(categoriaQuarto);
+        this.categoriaNaoCatalogada = naoCatalogada(this.categoriaQuarto, categoriaQuarto);
+        this.status = StatusReserva.CONFIRMADA;  
     }
     
     public Reserva(int numeroQuarto, String categoriaQuarto) {
         this.numeroQuarto = numeroQuarto;
-        this.categoriaQuarto = categoriaQuarto;
+        this.categoriaQuarto = CatalogoCategorias.buscar(categoriaQuarto);
+        this.categoriaNaoCatalogada = naoCatalogada(this.categoriaQuarto, categoriaQuarto);
     }
     
     public Reserva() {
-        this.status = "Disponível";  
+        this.status = StatusReserva.DISPONIVEL;  
     }
 
     public Reserva(String clienteId) {
@@ -49,14 +59,27 @@ public class Reserva implements Comparable<Reserva> {
     }
 
     public String getStatus() {
+        return status == null ? null : status.getDescricao();
+    }
+
+    public StatusReserva getStatusReserva() {
         return status;
     }
 
     public void setStatus(String status) {
+        this.status = StatusReserva.deDescricao(status);
+    }
+
+    public void setStatus(StatusReserva status) {
         this.status = status;
     }
 
     public LocalDate getCheckIn() {
+        return paraData(checkIn);
+    }
+
+    // Epoch day do check-in, ou SEM_DATA; usado nos caminhos quentes no lugar de getCheckIn()
+    public int getCheckInDia() {
         return checkIn;
     }
 
@@ -64,31 +87,74 @@ public class Reserva implements Comparable<Reserva> {
         if (checkIn.isBefore(LocalDate.now())) {
             throw new IllegalArgumentException("Data de check-in não pode ser no passado.");
         }
-        this.checkIn = checkIn;
+        this.checkIn = paraDia(checkIn);
     }
 
     public LocalDate getCheckOut() {
+        return paraData(checkOut);
+    }
+
+    public int getCheckOutDia() {
         return checkOut;
     }
 
     public void setCheckOut(LocalDate checkOut) {
-        this.checkOut = checkOut;
+        this.checkOut = paraDia(checkOut);
     }
 
     public String getCategoriaQuarto() {
+        return categoriaNaoCatalogada != null ? categoriaNaoCatalogada : CatalogoCategorias.nome(categoriaQuarto);
+    }
+
+    int getCodigoCategoria() {
         return categoriaQuarto;
     }
 
+    // Não registra o nome no catálogo: entradas externas não fazem o catálogo crescer
     public void setCategoriaQuarto(String categoriaQuarto) {
-        this.categoriaQuarto = categoriaQuarto;
+        this.categoriaQuarto = CatalogoCategorias.buscar(categoriaQuarto);
+        this.categoriaNaoCatalogada = naoCatalogada(this.categoriaQuarto, categoriaQuarto);
     }
 
+    private static String naoCatalogada(int codigo, String nome) {
+        return codigo == CatalogoCategorias.NAO_CATALOGADA ? nome : null;
+    }
+
+    static int paraDia(LocalDate data) {
+        return data == null ? SEM_DATA : Math.toIntExact(data.toEpochDay());
+    }
+
+    static LocalDate paraData(int dia) {
+        return dia == SEM_DATA ? null : LocalDate.ofEpochDay(dia);
+    }
+
+    public long getSequencia() {
+        return sequencia;
+    }
+
+    // Chave composta (checkIn, numeroQuarto, clienteId, sequencia): duas reservas distintas nunca empatam
     @Override
     public int compareTo(Reserva other) {
-        if (this.checkIn == null || other.checkIn == null) {
-            return 0;  
+        int cmp = Integer.compare(this.checkIn, other.checkIn);
+        if (cmp != 0) {
+            return cmp;
+        }
+        cmp = Integer.compare(this.numeroQuarto, other.numeroQuarto);
+        if (cmp != 0) {
+            return cmp;
+        }
+        cmp = compareNullsFirst(this.clienteId, other.clienteId);
+        if (cmp != 0) {
+            return cmp;
+        }
+        return Long.compare(this.sequencia, other.sequencia);
+    }
+
+    private static <C extends Comparable<C>> int compareNullsFirst(C a, C b) {
+        if (a == null || b == null) {
+            return a == b ? 0 : (a == null ? -1 : 1);
         }
-        return this.checkIn.compareTo(other.checkIn);
+        return a.compareTo(b);
     }
 
     public int compareByClienteId(Reserva other) {
@@ -98,7 +164,7 @@ public class Reserva implements Comparable<Reserva> {
     @Override
     public String toString() {
         return "Reserva [Cliente ID: " + clienteId + ", Status: " + status + 
-               ", Quarto: " + numeroQuarto + ", Categoria: " + categoriaQuarto + 
-               ", Check-in: " + checkIn + ", Check-out: " + checkOut + "]";
+               ", Quarto: " + numeroQuarto + ", Categoria: " + getCategoriaQuarto() + 
+               ", Check-in: " + getCheckIn() + ", Check-out: " + getCheckOut() + "]";
     }
 }
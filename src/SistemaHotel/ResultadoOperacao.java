@@ -0,0 +1,26 @@
+package SistemaHotel;
+
+// Resultado das operações de escrita; a mensagem correspondente vai para o RegistroEventos
+public enum ResultadoOperacao {
+	SUCESSO,
+	DATAS_OBRIGATORIAS,
+	CHECKOUT_ANTES_DO_CHECKIN,
+	DATA_FORA_DO_HORIZONTE, // Data a mais de HotelReservaSistema.HORIZONTE_ANOS de hoje
+	ESTADIA_EXCEDE_LIMITE, // Mais de HotelReservaSistema.MAXIMO_NOITES noites
+	QUARTO_NAO_ENCONTRADO,
+	QUARTO_JA_EXISTE,
+	CONFLITO_COM_RESERVA,
+	CONFLITO_NO_LOTE,
+	CAPACIDADE_ESGOTADA, // Alguma noite sem capacidade vendável na categoria (MotorCapacidade)
+	LOTE_EXCEDE_LIMITE,
+	LOTE_EXCEDE_TAMANHO, // Lote maior que um registro do journal
+	RESERVA_NAO_ENCONTRADA,
+	HOTEL_NAO_ENCONTRADO,
+	PERIODO_ENCERRADO, // Check-in anterior ao limite de estadias já concluídas
+	FALHA_JOURNAL,
+	FALHA_INTERNA; // Exceção inesperada em uma tarefa de fundo
+
+	public boolean isSucesso() {
+		return this == SUCESSO;
+	}
+}
@@ -0,0 +1,312 @@
+package SistemaHotel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// Frente HTTP do HotelReservaSistema: cada requisição é atendida em uma thread virtual, então
+// milhares de conexões simultâneas custam memória, não threads do sistema operacional.
+// Parâmetros vão na query string; a resposta é texto simples: na primeira linha o ResultadoOperacao
+// (ou ERRO), nas seguintes os dados, um registro por linha e campos separados por ';'.
+//
+//   POST   /quartos?numero=101&categoria=Luxo
+//   POST   /reservas?cliente=c1&quarto=101&checkIn=2025-01-10&checkOut=2025-01-12   (categoria vem do quarto)
+//   DELETE /reservas?cliente=c1
+//   GET    /reservas?cliente=c1
+//   GET    /disponibilidade?data=2025-01-10&categoria=Luxo
+//   GET    /capacidade?data=2025-01-10&categoria=Luxo              (sem categoria: hotel inteiro)
+//   POST   /capacidade/limites?limite=90&categoria=Luxo            (DELETE remove; sem categoria: hotel)
+//   POST   /capacidade/overbooking?categoria=Luxo&quartos=-1
+//   GET    /relatorios/ocupacao?inicio=2025-01-01&fim=2025-01-31
+//   GET    /relatorios/cancelamentos?inicio=2025-01-01&fim=2025-01-31
+//   GET    /relatorios/quartos
+//   GET    /relatorios/ranking?k=10&ordem=menos&inicio=2025-01-01&fim=2025-03-31   (ordem e período opcionais)
+//   GET    /instrumentacao
+public class ServidorReservas {
+
+	private static final int FILA_CONEXOES = 8192; // Conexões aguardando accept
+
+	private final HotelReservaSistema sistema;
+	private final HttpServer servidor;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	public ServidorReservas(HotelReservaSistema sistema, int porta) throws IOException {
+		this.sistema = sistema;
+		this.servidor = HttpServer.create(new InetSocketAddress(porta), FILA_CONEXOES);
+		servidor.setExecutor(executor);
+		servidor.createContext("/quartos", troca -> atender(troca, this::quartos));
+		servidor.createContext("/reservas", troca -> atender(troca, this::reservas));
+		servidor.createContext("/disponibilidade", troca -> atender(troca, this::disponibilidade));
+		servidor.createContext("/capacidade", troca -> atender(troca, this::capacidade));
+		servidor.createContext("/relatorios/", troca -> atender(troca, this::relatorios));
+		servidor.createContext("/instrumentacao",
+				troca -> atender(troca, (metodo, caminho, parametros) -> new Resposta(200, "SUCESSO",
+						sistema.getInstrumentacao().formatarJson())));
+	}
+
+	public void iniciar() {
+		servidor.start();
+	}
+
+	// Porta efetiva (útil quando criado com porta 0)
+	public int getPorta() {
+		return servidor.getAddress().getPort();
+	}
+
+	// Para de aceitar conexões e espera até 'segundos' pelas requisições em andamento
+	public void parar(int segundos) {
+		servidor.stop(segundos);
+		executor.close();
+	}
+
+	private record Resposta(int status, String resultado, String corpo) {
+	}
+
+	@FunctionalInterface
+	private interface Rota {
+		Resposta atender(String metodo, String caminho, Map<String, String> parametros);
+	}
+
+	private static void atender(HttpExchange troca, Rota rota) throws IOException {
+		Resposta resposta;
+		try {
+			resposta = rota.atender(troca.getRequestMethod(), troca.getRequestURI().getPath(),
+					lerParametros(troca.getRequestURI().getRawQuery()));
+		} catch (IllegalArgumentException | DateTimeParseException e) {
+			resposta = new Resposta(400, "ERRO", e.getMessage());
+		} catch (RuntimeException e) {
+			resposta = new Resposta(500, "ERRO", String.valueOf(e));
+		}
+		String texto = resposta.corpo().isEmpty() ? resposta.resultado() + "\n"
+				: resposta.resultado() + "\n" + resposta.corpo() + "\n";
+		byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+		troca.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		troca.sendResponseHeaders(resposta.status(), bytes.length);
+		try (OutputStream corpo = troca.getResponseBody()) {
+			corpo.write(bytes);
+		}
+	}
+
+	private Resposta quartos(String metodo, String caminho, Map<String, String> parametros) {
+		exigirMetodo(metodo, "POST");
+		return resultado(sistema.adicionarQuarto(inteiro(parametros, "numero"), texto(parametros, "categoria")), "");
+	}
+
+	private Resposta reservas(String metodo, String caminho, Map<String, String> parametros) {
+		String clienteId = texto(parametros, "cliente");
+		switch (metodo) {
+			case "POST":
+				LocalDate checkIn = data(parametros, "checkIn");
+				LocalDate checkOut = data(parametros, "checkOut");
+				ResultadoOperacao periodo = HotelReservaSistema.validarPeriodo(checkIn, checkOut);
+				if (!periodo.isSucesso()) {
+					return resultado(periodo, "");
+				}
+				Quarto quarto = sistema.obterQuarto(inteiro(parametros, "quarto"));
+				if (quarto == null) {
+					return resultado(ResultadoOperacao.QUARTO_NAO_ENCONTRADO, "");
+				}
+				Reserva reserva = new Reserva(clienteId, quarto.getNumeroQuarto(), "", checkIn, checkOut,
+						quarto.getCategoriaQuarto());
+				return resultado(sistema.cadastrarReserva(reserva), "");
+			case "DELETE":
+				return resultado(sistema.cancelarReserva(clienteId), "");
+			case "GET":
+				List<Reserva> reservas = sistema.obterReservasPorCliente(clienteId);
+				if (reservas.isEmpty()) {
+					return resultado(ResultadoOperacao.RESERVA_NAO_ENCONTRADA, "");
+				}
+				StringBuilder corpo = new StringBuilder();
+				for (Reserva encontrada : reservas) {
+					if (corpo.length() > 0) {
+						corpo.append('\n');
+					}
+					corpo.append(encontrada.getClienteId()).append(';').append(encontrada.getNumeroQuarto())
+							.append(';').append(encontrada.getCheckIn()).append(';').append(encontrada.getCheckOut())
+							.append(';').append(encontrada.getCategoriaQuarto()).append(';').append(encontrada.getStatus());
+				}
+				return resultado(ResultadoOperacao.SUCESSO, corpo.toString());
+			default:
+				throw new IllegalArgumentException("Método não suportado: " + metodo);
+		}
+	}
+
+	private Resposta disponibilidade(String metodo, String caminho, Map<String, String> parametros) {
+		exigirMetodo(metodo, "GET");
+		StringBuilder corpo = new StringBuilder();
+		for (Quarto quarto : sistema.consultarDisponibilidade(data(parametros, "data"), texto(parametros, "categoria"))) {
+			if (corpo.length() > 0) {
+				corpo.append(';');
+			}
+			corpo.append(quarto.getNumeroQuarto());
+		}
+		return resultado(ResultadoOperacao.SUCESSO, corpo.toString());
+	}
+
+	// Configuração do MotorCapacidade; os alertas vão aos ouvintes registrados no sistema
+	private Resposta capacidade(String metodo, String caminho, Map<String, String> parametros) {
+		MotorCapacidade capacidade = sistema.getCapacidade();
+		String categoria = parametros.get("categoria");
+		switch (caminho) {
+			case "/capacidade": {
+				exigirMetodo(metodo, "GET");
+				LocalDate noite = data(parametros, "data");
+				return resultado(ResultadoOperacao.SUCESSO, capacidade.ocupados(categoria, noite) + ";"
+						+ capacidade.capacidadeVendavel(categoria) + ";" + capacidade.disponiveisParaVenda(categoria, noite)
+						+ ";" + String.format(Locale.ROOT, "%.2f", capacidade.taxaOcupacao(categoria, noite)));
+			}
+			case "/capacidade/limites":
+				switch (metodo) {
+					case "POST":
+						capacidade.definirLimite(categoria, Double.parseDouble(texto(parametros, "limite")));
+						return resultado(ResultadoOperacao.SUCESSO, "");
+					case "DELETE":
+						capacidade.removerLimite(categoria);
+						return resultado(ResultadoOperacao.SUCESSO, "");
+					default:
+						throw new IllegalArgumentException("Método não suportado: " + metodo);
+				}
+			case "/capacidade/overbooking":
+				exigirMetodo(metodo, "POST");
+				capacidade.definirOverbooking(texto(parametros, "categoria"), inteiro(parametros, "quartos"));
+				return resultado(ResultadoOperacao.SUCESSO, "");
+			default:
+				return new Resposta(404, "ERRO", "Recurso desconhecido: " + caminho);
+		}
+	}
+
+	// Os relatórios do sistema imprimem no console; aqui os mesmos números vêm dos agregados
+	private Resposta relatorios(String metodo, String caminho, Map<String, String> parametros) {
+		exigirMetodo(metodo, "GET");
+		MetricasReservas metricas = sistema.getMetricas();
+		switch (caminho) {
+			case "/relatorios/ocupacao": {
+				LocalDate inicio = data(parametros, "inicio");
+				LocalDate fim = data(parametros, "fim");
+				if (fim.isBefore(inicio)) {
+					throw new IllegalArgumentException("Período inválido");
+				}
+				int totalQuartos = sistema.totalQuartos();
+				double taxa = totalQuartos == 0 ? 0 : sistema.calcularTaxaOcupacao(inicio, fim, totalQuartos);
+				return resultado(ResultadoOperacao.SUCESSO, String.format(Locale.ROOT, "%.2f", taxa));
+			}
+			case "/relatorios/cancelamentos": {
+				LocalDate inicio = data(parametros, "inicio");
+				LocalDate fim = data(parametros, "fim");
+				if (fim.isBefore(inicio)) {
+					throw new IllegalArgumentException("Período inválido");
+				}
+				return resultado(ResultadoOperacao.SUCESSO, String.valueOf(metricas.cancelamentosComCheckOutEntre(inicio, fim)));
+			}
+			case "/relatorios/quartos": {
+				Map.Entry<Integer, Integer> maisReservado;
+				Map.Entry<Integer, Integer> menosReservado;
+				synchronized (metricas) {
+					maisReservado = metricas.quartoMaisReservado();
+					menosReservado = metricas.quartoMenosReservado();
+				}
+				if (maisReservado == null) {
+					return resultado(ResultadoOperacao.SUCESSO, "");
+				}
+				return resultado(ResultadoOperacao.SUCESSO, maisReservado.getKey() + ";" + maisReservado.getValue()
+						+ "\n" + menosReservado.getKey() + ";" + menosReservado.getValue());
+			}
+			case "/relatorios/ranking": {
+				int k = inteiro(parametros, "k");
+				boolean menos = "menos".equals(parametros.get("ordem"));
+				List<Map.Entry<Integer, Integer>> ranking;
+				if (parametros.containsKey("inicio") || parametros.containsKey("fim")) {
+					LocalDate inicio = data(parametros, "inicio");
+					LocalDate fim = data(parametros, "fim");
+					if (fim.isBefore(inicio)) {
+						throw new IllegalArgumentException("Período inválido");
+					}
+					ranking = menos ? metricas.quartosMenosReservados(k, inicio, fim) : metricas.quartosMaisReservados(k, inicio, fim);
+				} else {
+					ranking = menos ? metricas.quartosMenosReservados(k) : metricas.quartosMaisReservados(k);
+				}
+				StringBuilder corpo = new StringBuilder();
+				for (Map.Entry<Integer, Integer> entry : ranking) {
+					if (corpo.length() > 0) {
+						corpo.append('\n');
+					}
+					corpo.append(entry.getKey()).append(';').append(entry.getValue());
+				}
+				return resultado(ResultadoOperacao.SUCESSO, corpo.toString());
+			}
+			default:
+				return new Resposta(404, "ERRO", "Relatório desconhecido: " + caminho);
+		}
+	}
+
+	private static Resposta resultado(ResultadoOperacao resultado, String corpo) {
+		int status = switch (resultado) {
+			case SUCESSO -> 200;
+			case CONFLITO_COM_RESERVA, CONFLITO_NO_LOTE, CAPACIDADE_ESGOTADA, QUARTO_JA_EXISTE -> 409;
+			case QUARTO_NAO_ENCONTRADO, RESERVA_NAO_ENCONTRADA, HOTEL_NAO_ENCONTRADO -> 404;
+			case FALHA_JOURNAL, FALHA_INTERNA -> 500;
+			default -> 400;
+		};
+		return new Resposta(status, resultado.name(), corpo);
+	}
+
+	private static void exigirMetodo(String metodo, String esperado) {
+		if (!metodo.equals(esperado)) {
+			throw new IllegalArgumentException("Método não suportado: " + metodo);
+		}
+	}
+
+	private static Map<String, String> lerParametros(String query) {
+		Map<String, String> parametros = new HashMap<>();
+		if (query == null || query.isEmpty()) {
+			return parametros;
+		}
+		for (String par : query.split("&")) {
+			int igual = par.indexOf('=');
+			String chave = igual < 0 ? par : par.substring(0, igual);
+			String valor = igual < 0 ? "" : par.substring(igual + 1);
+			parametros.put(URLDecoder.decode(chave, StandardCharsets.UTF_8), URLDecoder.decode(valor, StandardCharsets.UTF_8));
+		}
+		return parametros;
+	}
+
+	private static String texto(Map<String, String> parametros, String nome) {
+		String valor = parametros.get(nome);
+		if (valor == null || valor.isEmpty()) {
+			throw new IllegalArgumentException("Parâmetro obrigatório: " + nome);
+		}
+		return valor;
+	}
+
+	private static int inteiro(Map<String, String> parametros, String nome) {
+		return Integer.parseInt(texto(parametros, nome));
+	}
+
+	private static LocalDate data(Map<String, String> parametros, String nome) {
+		return LocalDate.parse(texto(parametros, nome));
+	}
+
+	// Uso: java SistemaHotel.ServidorReservas [porta]. Os eventos vão para o console de forma assíncrona,
+	// e os alertas de capacidade (limites definidos em /capacidade/limites) também vão para o console.
+	public static void main(String[] args) throws IOException {
+		int porta = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+		HotelReservaSistema sistema = new HotelReservaSistema(new RegistroEventosAssincrono(System.out, 1 << 16));
+		sistema.getCapacidade().adicionarOuvinte(alerta -> System.out.println(alerta.formatar()));
+		ServidorReservas servidor = new ServidorReservas(sistema, porta);
+		servidor.iniciar();
+		System.out.println("Servidor de reservas na porta " + servidor.getPorta());
+	}
+}
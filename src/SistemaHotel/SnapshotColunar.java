@@ -0,0 +1,379 @@
+package SistemaHotel;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Snapshot somente leitura de reservas e histórico em colunas, lido direto de um arquivo mapeado em memória.
+// Permite atender consultas sem reconstruir as árvores e sem alocar uma Reserva por linha; gravado nas
+// compactações quando habilitado por HotelReservaSistema.setSnapshotColunar.
+// Layout (big-endian):
+//   cabeçalho: [int MAGICO][int FORMATO][long versao]
+//   dicionários: clientes (ordenados, código int) e rótulos de categoria/status (código byte, 0 = null),
+//                cada um como [int n][int deslocamento x (n + 1)][bytes UTF-8]
+//   seção (reservas, depois histórico), linhas na ordem da árvore:
+//     [int n][int quarto x n][int checkIn x n][int checkOut x n][int maior checkOut acumulado x n]
+//     [int cliente x n][byte categoria x n][byte status x n][int inicio por cliente x (clientes + 1)][int linha x n]
+public final class SnapshotColunar {
+
+	private static final int MAGICO = 0x52535643; // "RSVC"
+	private static final int FORMATO = 1;
+	private static final int SEM_CLIENTE = -1;
+	private static final int MAXIMO_ROTULOS = 255;
+
+	private final ByteBuffer dados;
+	private final long versao;
+	private final Dicionario clientes;
+	private final Dicionario rotulos;
+	private final Secao reservas;
+	private final Secao historico;
+
+	private SnapshotColunar(ByteBuffer dados) throws IOException {
+		this.dados = dados;
+		if (dados.limit() < 16 || dados.getInt(0) != MAGICO || dados.getInt(4) != FORMATO) {
+			throw new IOException("Arquivo não é um snapshot colunar de reservas.");
+		}
+		this.versao = dados.getLong(8);
+		this.clientes = new Dicionario(16);
+		this.rotulos = new Dicionario(clientes.fim);
+		this.reservas = new Secao(rotulos.fim);
+		this.historico = new Secao(reservas.fim);
+	}
+
+	// Mapeia o arquivo; o mapeamento continua válido depois que o canal é fechado
+	public static SnapshotColunar abrir(Path arquivo) throws IOException {
+		try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+			if (canal.size() > Integer.MAX_VALUE) {
+				throw new IOException("Snapshot colunar maior que 2 GB: " + arquivo);
+			}
+			MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+			try {
+				return new SnapshotColunar(mapa);
+			} catch (IndexOutOfBoundsException e) {
+				throw new IOException("Snapshot colunar truncado: " + arquivo, e);
+			}
+		}
+	}
+
+	// Grava em um arquivo temporário e o move atomicamente para 'arquivo'. Devolve false, sem gravar,
+	// se categorias e status distintos não couberem nos códigos de um byte.
+	public static boolean gravar(Path arquivo, SnapshotReservas snapshot) throws IOException {
+		TreeSet<String> nomesClientes = new TreeSet<>();
+		TreeSet<String> nomesRotulos = new TreeSet<>();
+		for (PersistentRedBlackTree<Reserva> arvore : List.of(snapshot.getReservas(), snapshot.getHistorico())) {
+			for (Reserva reserva : arvore) {
+				if (reserva.getClienteId() != null) {
+					nomesClientes.add(reserva.getClienteId());
+				}
+				if (reserva.getCategoriaQuarto() != null) {
+					nomesRotulos.add(reserva.getCategoriaQuarto());
+				}
+				if (reserva.getStatus() != null) {
+					nomesRotulos.add(reserva.getStatus());
+				}
+			}
+		}
+		if (nomesRotulos.size() > MAXIMO_ROTULOS) {
+			return false;
+		}
+		List<String> listaClientes = new ArrayList<>(nomesClientes);
+		List<String> listaRotulos = new ArrayList<>(nomesRotulos);
+		Map<String, Integer> codigosClientes = codigos(listaClientes);
+		Map<String, Integer> codigosRotulos = codigos(listaRotulos);
+
+		Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporario)))) {
+			out.writeInt(MAGICO);
+			out.writeInt(FORMATO);
+			out.writeLong(snapshot.getVersao());
+			escreverDicionario(out, listaClientes);
+			escreverDicionario(out, listaRotulos);
+			escreverSecao(out, snapshot.getReservas(), codigosClientes, codigosRotulos, listaClientes.size());
+			escreverSecao(out, snapshot.getHistorico(), codigosClientes, codigosRotulos, listaClientes.size());
+		}
+		try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.WRITE)) {
+			canal.force(true);
+		}
+		Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		JournalReservas.sincronizarDiretorio(arquivo.toAbsolutePath().getParent());
+		return true;
+	}
+
+	private static Map<String, Integer> codigos(List<String> textos) {
+		Map<String, Integer> codigos = new HashMap<>();
+		for (int i = 0; i < textos.size(); i++) {
+			codigos.put(textos.get(i), i);
+		}
+		return codigos;
+	}
+
+	private static void escreverDicionario(DataOutputStream out, List<String> textos) throws IOException {
+		List<byte[]> bytes = new ArrayList<>(textos.size());
+		for (String texto : textos) {
+			bytes.add(texto.getBytes(StandardCharsets.UTF_8));
+		}
+		out.writeInt(textos.size());
+		int deslocamento = 0;
+		out.writeInt(deslocamento);
+		for (byte[] texto : bytes) {
+			deslocamento += texto.length;
+			out.writeInt(deslocamento);
+		}
+		for (byte[] texto : bytes) {
+			out.write(texto);
+		}
+	}
+
+	private static void escreverSecao(DataOutputStream out, PersistentRedBlackTree<Reserva> arvore,
+			Map<String, Integer> codigosClientes, Map<String, Integer> codigosRotulos, int totalClientes) throws IOException {
+		int n = arvore.size();
+		int[] quarto = new int[n];
+		int[] checkIn = new int[n];
+		int[] checkOut = new int[n];
+		int[] cliente = new int[n];
+		byte[] categoria = new byte[n];
+		byte[] status = new byte[n];
+		int[] porCliente = new int[totalClientes + 1];
+		int i = 0;
+		for (Reserva reserva : arvore) {
+			quarto[i] = reserva.getNumeroQuarto();
+			checkIn[i] = reserva.getCheckInDia();
+			checkOut[i] = reserva.getCheckOutDia();
+			cliente[i] = reserva.getClienteId() == null ? SEM_CLIENTE : codigosClientes.get(reserva.getClienteId());
+			categoria[i] = codigoRotulo(codigosRotulos, reserva.getCategoriaQuarto());
+			status[i] = codigoRotulo(codigosRotulos, reserva.getStatus());
+			if (cliente[i] != SEM_CLIENTE) {
+				porCliente[cliente[i] + 1]++;
+			}
+			i++;
+		}
+
+		out.writeInt(n);
+		escreverInts(out, quarto);
+		escreverInts(out, checkIn);
+		escreverInts(out, checkOut);
+		// Não decrescente: permite achar por busca binária a primeira linha que pode sobrepor um período
+		int maior = Integer.MIN_VALUE;
+		for (int linha = 0; linha < n; linha++) {
+			maior = Math.max(maior, checkOut[linha]);
+			out.writeInt(maior);
+		}
+		escreverInts(out, cliente);
+		out.write(categoria);
+		out.write(status);
+
+		// Índice de linhas por cliente (CSR), em ordem crescente de linha
+		for (int c = 0; c < totalClientes; c++) {
+			porCliente[c + 1] += porCliente[c];
+		}
+		escreverInts(out, porCliente);
+		int[] proxima = new int[totalClientes];
+		int[] linhas = new int[porCliente[totalClientes]];
+		for (int linha = 0; linha < n; linha++) {
+			if (cliente[linha] != SEM_CLIENTE) {
+				linhas[porCliente[cliente[linha]] + proxima[cliente[linha]]++] = linha;
+			}
+		}
+		escreverInts(out, linhas);
+	}
+
+	private static byte codigoRotulo(Map<String, Integer> codigosRotulos, String rotulo) {
+		return rotulo == null ? 0 : (byte) (codigosRotulos.get(rotulo) + 1);
+	}
+
+	private static void escreverInts(DataOutputStream out, int[] valores) throws IOException {
+		for (int valor : valores) {
+			out.writeInt(valor);
+		}
+	}
+
+	public long getVersao() {
+		return versao;
+	}
+
+	public Secao getReservas() {
+		return reservas;
+	}
+
+	public Secao getHistorico() {
+		return historico;
+	}
+
+	private final class Dicionario {
+		final int tamanho;
+		final int deslocamentos;
+		final int textos;
+		final int fim;
+
+		Dicionario(int inicio) {
+			tamanho = dados.getInt(inicio);
+			deslocamentos = inicio + 4;
+			textos = deslocamentos + (tamanho + 1) * 4;
+			fim = textos + dados.getInt(deslocamentos + tamanho * 4);
+		}
+
+		String texto(int codigo) {
+			int de = dados.getInt(deslocamentos + codigo * 4);
+			int ate = dados.getInt(deslocamentos + (codigo + 1) * 4);
+			byte[] bytes = new byte[ate - de];
+			dados.get(textos + de, bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		// Os textos estão ordenados; devolve -1 se ausente
+		int codigo(String texto) {
+			int baixo = 0;
+			int alto = tamanho - 1;
+			while (baixo <= alto) {
+				int meio = (baixo + alto) >>> 1;
+				int cmp = texto(meio).compareTo(texto);
+				if (cmp == 0) {
+					return meio;
+				}
+				if (cmp < 0) {
+					baixo = meio + 1;
+				} else {
+					alto = meio - 1;
+				}
+			}
+			return -1;
+		}
+	}
+
+	// Linhas ordenadas como na árvore de origem (check-in, quarto, cliente)
+	public final class Secao {
+		private final int tamanho;
+		private final int quartos;
+		private final int checkIns;
+		private final int checkOuts;
+		private final int maioresCheckOut;
+		private final int clientesDaLinha;
+		private final int categorias;
+		private final int status;
+		private final int inicioPorCliente;
+		private final int linhasPorCliente;
+		private final int fim;
+
+		private Secao(int inicio) {
+			tamanho = dados.getInt(inicio);
+			quartos = inicio + 4;
+			checkIns = quartos + tamanho * 4;
+			checkOuts = checkIns + tamanho * 4;
+			maioresCheckOut = checkOuts + tamanho * 4;
+			clientesDaLinha = maioresCheckOut + tamanho * 4;
+			categorias = clientesDaLinha + tamanho * 4;
+			status = categorias + tamanho;
+			inicioPorCliente = status + tamanho;
+			linhasPorCliente = inicioPorCliente + (clientes.tamanho + 1) * 4;
+			fim = linhasPorCliente + dados.getInt(inicioPorCliente + clientes.tamanho * 4) * 4;
+		}
+
+		public int tamanho() {
+			return tamanho;
+		}
+
+		public int getNumeroQuarto(int linha) {
+			return dados.getInt(quartos + indice(linha) * 4);
+		}
+
+		public LocalDate getCheckIn(int linha) {
+			return LocalDate.ofEpochDay(dados.getInt(checkIns + indice(linha) * 4));
+		}
+
+		public LocalDate getCheckOut(int linha) {
+			return LocalDate.ofEpochDay(dados.getInt(checkOuts + indice(linha) * 4));
+		}
+
+		public String getClienteId(int linha) {
+			int codigo = dados.getInt(clientesDaLinha + indice(linha) * 4);
+			return codigo == SEM_CLIENTE ? null : clientes.texto(codigo);
+		}
+
+		public String getCategoriaQuarto(int linha) {
+			return rotulo(dados.get(categorias + indice(linha)));
+		}
+
+		public String getStatus(int linha) {
+			return rotulo(dados.get(status + indice(linha)));
+		}
+
+		// Materializa a linha como uma Reserva nova, desligada do arquivo
+		public Reserva obter(int linha) {
+			Reserva reserva = new Reserva(getClienteId(linha), getNumeroQuarto(linha), "",
+					getCheckIn(linha), getCheckOut(linha), getCategoriaQuarto(linha));
+			reserva.setStatus(getStatus(linha));
+			return reserva;
+		}
+
+		// Linhas cujo intervalo [checkIn, checkOut) sobrepõe [inicio, fim), em ordem de check-in
+		public List<Reserva> sobrepostas(LocalDate inicio, LocalDate fim) {
+			int diaInicio = Math.toIntExact(inicio.toEpochDay());
+			int diaFim = Math.toIntExact(fim.toEpochDay());
+			// Antes de 'de', nenhum check-out passa de 'inicio'; a partir de 'ate', o check-in já é >= fim
+			int de = primeiraLinhaMaiorQue(maioresCheckOut, diaInicio);
+			int ate = primeiraLinhaMaiorQue(checkIns, diaFim - 1);
+			List<Reserva> resultado = new ArrayList<>();
+			for (int linha = de; linha < ate; linha++) {
+				if (dados.getInt(checkOuts + linha * 4) > diaInicio) {
+					resultado.add(obter(linha));
+				}
+			}
+			return resultado;
+		}
+
+		// Reservas do cliente em ordem de check-in
+		public List<Reserva> doCliente(String clienteId) {
+			int codigo = clientes.codigo(clienteId);
+			if (codigo < 0) {
+				return List.of();
+			}
+			int de = dados.getInt(inicioPorCliente + codigo * 4);
+			int ate = dados.getInt(inicioPorCliente + (codigo + 1) * 4);
+			List<Reserva> resultado = new ArrayList<>(ate - de);
+			for (int i = de; i < ate; i++) {
+				resultado.add(obter(dados.getInt(linhasPorCliente + i * 4)));
+			}
+			return resultado;
+		}
+
+		// Coluna não decrescente: primeira linha com valor > limite, ou tamanho
+		private int primeiraLinhaMaiorQue(int coluna, int limite) {
+			int baixo = 0;
+			int alto = tamanho;
+			while (baixo < alto) {
+				int meio = (baixo + alto) >>> 1;
+				if (dados.getInt(coluna + meio * 4) > limite) {
+					alto = meio;
+				} else {
+					baixo = meio + 1;
+				}
+			}
+			return baixo;
+		}
+
+		private String rotulo(byte codigo) {
+			return codigo == 0 ? null : rotulos.texto((codigo & 0xFF) - 1);
+		}
+
+		private int indice(int linha) {
+			if (linha < 0 || linha >= tamanho) {
+				throw new IndexOutOfBoundsException("Linha " + linha + " fora do snapshot (" + tamanho + ").");
+			}
+			return linha;
+		}
+	}
+}
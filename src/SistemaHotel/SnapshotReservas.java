@@ -0,0 +1,29 @@
+package SistemaHotel;
+
+// Visão imutável e consistente de reservas e histórico em um ponto no tempo.
+// Pode ser percorrida por qualquer thread sem travas enquanto novas reservas chegam.
+public final class SnapshotReservas {
+
+	private final PersistentRedBlackTree<Reserva> reservas;
+	private final PersistentRedBlackTree<Reserva> historico;
+	private final long versao;
+
+	SnapshotReservas(PersistentRedBlackTree<Reserva> reservas, PersistentRedBlackTree<Reserva> historico, long versao) {
+		this.reservas = reservas;
+		this.historico = historico;
+		this.versao = versao;
+	}
+
+	public PersistentRedBlackTree<Reserva> getReservas() {
+		return reservas;
+	}
+
+	public PersistentRedBlackTree<Reserva> getHistorico() {
+		return historico;
+	}
+
+	// Incrementada a cada escrita publicada
+	public long getVersao() {
+		return versao;
+	}
+}
@@ -0,0 +1,38 @@
+package SistemaHotel;
+
+// Status de reservas e quartos; a descrição é o texto exposto por Reserva.getStatus()
+public enum StatusReserva {
+	CONFIRMADA("Confirmada"),
+	CANCELADA("Cancelada"),
+	CONCLUIDA("Concluída"),
+	DISPONIVEL("Disponível"),
+	RESERVADO("Reservado");
+
+	private final String descricao;
+
+	StatusReserva(String descricao) {
+		this.descricao = descricao;
+	}
+
+	public String getDescricao() {
+		return descricao;
+	}
+
+	// null para null; texto desconhecido é rejeitado
+	public static StatusReserva deDescricao(String descricao) {
+		if (descricao == null) {
+			return null;
+		}
+		for (StatusReserva status : values()) {
+			if (status.descricao.equals(descricao)) {
+				return status;
+			}
+		}
+		throw new IllegalArgumentException("Status desconhecido: " + descricao);
+	}
+
+	@Override
+	public String toString() {
+		return descricao;
+	}
+}
@@ -21,22 +21,24 @@ public class Teste {
         Reserva reserva1 = new Reserva("cliente1", 101, "João Silva", LocalDate.of(2024, 12, 1), LocalDate.of(2024, 12, 3), "Standard");
         Reserva reserva2 = new Reserva("cliente2", 201, "Maria Oliveira", LocalDate.of(2024, 12, 5), LocalDate.of(2024, 12, 10), "Luxo");
         Reserva reservaConflitante = new Reserva("cliente3", 101, "Pedro Souza", LocalDate.of(2024, 12, 2), LocalDate.of(2024, 12, 4), "Standard");
+        Reserva reservaMesmoCheckIn = new Reserva("cliente4", 202, "Ana Costa", LocalDate.of(2024, 12, 5), LocalDate.of(2024, 12, 8), "Luxo");
 
         sistema.cadastrarReserva(reserva1); 
         sistema.cadastrarReserva(reserva2); 
         sistema.cadastrarReserva(reservaConflitante); 
+        sistema.cadastrarReserva(reservaMesmoCheckIn); // Mesmo check-in de reserva2, deve ser aceita
 
         System.out.println("\n=== Teste: Cancelamento de Reservas ===");
         sistema.cancelarReserva("cliente1"); 
         sistema.cancelarReserva("clienteX"); 
 
         System.out.println("\n=== Teste: Consulta de Disponibilidade ===");
-        List<Reserva> disponiveis = sistema.consultarDisponibilidade(LocalDate.of(2024, 12, 2), "Standard");
+        List<Quarto> disponiveis = sistema.consultarDisponibilidade(LocalDate.of(2024, 12, 2), "Standard");
         if (disponiveis.isEmpty()) {
             System.out.println("Nenhum quarto disponível.");
         } else {
             System.out.println("Quartos disponíveis:");
-            for (Reserva quarto : disponiveis) {
+            for (Quarto quarto : disponiveis) {
                 System.out.println(quarto);
             }
         }
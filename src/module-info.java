@@ -5,4 +5,5 @@
  * 
  */
 module ReservasHoteis {
+	requires jdk.httpserver;
 }
\ No newline at end of file